@@ -0,0 +1,71 @@
+package com.borisey.personal_finance.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Сравнение двух файлов результатов JMH в формате JSON: прошлого выпуска и текущего.
+// Замеры сопоставляются по имени и параметрам; код возврата 1, если хотя бы один замер
+// ухудшился больше чем на порог в процентах (по умолчанию 10).
+// java -cp benchmarks.jar com.borisey.personal_finance.benchmarks.BenchmarkComparison base.json current.json [порог]
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Использование: BenchmarkComparison <прошлый.json> <текущий.json> [порог, %]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = read(args[0]);
+        Map<String, JsonNode> current = read(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s новый замер%n", entry.getKey());
+                continue;
+            }
+            double oldScore = before.path("primaryMetric").path("score").asDouble();
+            double newScore = entry.getValue().path("primaryMetric").path("score").asDouble();
+            // В режиме пропускной способности больше — лучше, в остальных режимах (время) — хуже
+            boolean throughput = "thrpt".equals(entry.getValue().path("mode").asText());
+            double change = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100;
+            double slowdown = throughput ? -change : change;
+            boolean regressed = slowdown > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %12.3f -> %12.3f %s  %+7.1f%%%s%n", entry.getKey(), oldScore, newScore,
+                    entry.getValue().path("primaryMetric").path("scoreUnit").asText(), change,
+                    regressed ? "  УХУДШЕНИЕ" : "");
+        }
+
+        System.out.printf("Ухудшений больше %.1f%%: %d%n", threshold, regressions);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> read(String path) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(path))) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,38 @@
+package com.borisey.personal_finance.benchmarks;
+
+import com.borisey.personal_finance.PersonalFinanceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Paths;
+
+// Контекст приложения для замеров: встроенная H2 в файле (по умолчанию target/benchmark-db,
+// задается -Dbenchmark.db), без веб-сервера и без журналов SQL, которые исказили бы результаты.
+// Профиль dev не включается, поэтому настройки MySQL из application-dev.properties не действуют
+final class BenchmarkContext {
+
+    private static final String DATABASE = System.getProperty("benchmark.db", "target/benchmark-db");
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        String url = "jdbc:h2:file:" + Paths.get(DATABASE).toAbsolutePath() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        return new SpringApplicationBuilder(PersonalFinanceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=benchmark",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.data.redis.repositories.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.com.borisey.personal_finance=WARN");
+    }
+}
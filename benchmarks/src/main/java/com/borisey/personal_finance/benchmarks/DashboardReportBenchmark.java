@@ -0,0 +1,44 @@
+package com.borisey.personal_finance.benchmarks;
+
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.services.ReportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Сводный Excel-отчет за два года: агрегирующие запросы по всем транзакциям пользователя и построение листа
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DashboardReportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ReportService reportService;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        reportService = context.getBean(ReportService.class);
+        user = SyntheticTransactions.ensureUser(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] generateDashboardReport() throws IOException {
+        return reportService.generateDashboardReport(
+                user, SyntheticTransactions.FIRST_DATE, SyntheticTransactions.BASE_DATE);
+    }
+}
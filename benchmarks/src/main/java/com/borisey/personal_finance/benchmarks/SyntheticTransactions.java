@@ -0,0 +1,114 @@
+package com.borisey.personal_finance.benchmarks;
+
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.repo.UserRepository;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Детерминированные синтетические данные: пользователь benchmark-<rows> с 12 категориями и rows
+// транзакциями за два года до BASE_DATE. Все значения вычисляются из номера строки, поэтому одинаковый
+// объем всегда дает одинаковые данные. Созданные данные остаются в файле базы и переиспользуются
+// следующими запусками: подготовка миллиона строк занимает несколько минут и нужна один раз.
+// Строки вставляются напрямую, минуя TransactionService, поэтому дневные агрегаты для них не ведутся
+final class SyntheticTransactions {
+
+    static final LocalDateTime BASE_DATE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    static final LocalDateTime FIRST_DATE = BASE_DATE.minusYears(2);
+
+    private static final List<String> INCOME_CATEGORIES = List.of("Зарплата", "Подработка", "Проценты", "Подарки");
+    private static final List<String> EXPENSE_CATEGORIES = List.of(
+            "Продукты", "Транспорт", "Жилье", "Связь", "Здоровье", "Развлечения", "Одежда", "Кафе");
+    private static final int MINUTES_IN_TWO_YEARS = 2 * 365 * 24 * 60;
+    private static final int INSERT_CHUNK = 20_000;
+
+    private SyntheticTransactions() {
+    }
+
+    static User ensureUser(ConfigurableApplicationContext context, int rows) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        String username = "benchmark-" + rows;
+        User user = userRepository.findByUsername(username);
+        if (user != null) {
+            return user;
+        }
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        long started = System.nanoTime();
+        jdbcTemplate.update("INSERT INTO users (username, password, role, created_at) VALUES (?, 'x', 'USER', ?)",
+                username, FIRST_DATE);
+        user = userRepository.findByUsername(username);
+
+        long incomeTypeId = idByCode(jdbcTemplate, "transaction_types", "INCOME");
+        long expenseTypeId = idByCode(jdbcTemplate, "transaction_types", "EXPENSE");
+        long firstIncomeCategoryId = insertCategories(jdbcTemplate, user.getId(), incomeTypeId, INCOME_CATEGORIES);
+        long firstExpenseCategoryId = insertCategories(jdbcTemplate, user.getId(), expenseTypeId, EXPENSE_CATEGORIES);
+        List<Long> bankIds = jdbcTemplate.queryForList("SELECT id FROM banks ORDER BY id", Long.class);
+
+        // 30% поступлений и 70% списаний; 5% удалено, 5% отменено, часть выполнена, остальные новые;
+        // четверть операций — с юридическими лицами; суммы от 1 до 1000 рублей с копейками
+        String insert = "INSERT INTO transactions (id, user_id, person_type_id, operation_date_time, "
+                + "transaction_type_id, comment, amount, status_id, sender_bank_id, source_account_number, "
+                + "recipient_bank_id, recipient_account_number, recipient_inn, recipient_phone, category_id, "
+                + "created, updated) "
+                + "SELECT " + maxId(jdbcTemplate, "transactions") + " + n, " + user.getId() + ", "
+                + "CASEWHEN(MOD(n, 4) = 0, " + idByCode(jdbcTemplate, "person_types", "LEGAL") + ", "
+                + idByCode(jdbcTemplate, "person_types", "INDIVIDUAL") + "), "
+                + "DATEADD(MINUTE, -MOD(n * 7919, " + MINUTES_IN_TWO_YEARS + "), TIMESTAMP '2025-01-01 00:00:00'), "
+                + "CASEWHEN(MOD(n, 10) < 3, " + incomeTypeId + ", " + expenseTypeId + "), "
+                + "CONCAT('Платеж ', n), "
+                + "CAST(MOD(n * 104729, 100000) AS DECIMAL(15, 5)) / 100 + 1, "
+                + "CASE WHEN MOD(n, 20) = 0 THEN " + idByCode(jdbcTemplate, "transaction_statuses", "DELETED")
+                + " WHEN MOD(n, 20) = 1 THEN " + idByCode(jdbcTemplate, "transaction_statuses", "CANCELLED")
+                + " WHEN MOD(n, 5) = 2 THEN " + idByCode(jdbcTemplate, "transaction_statuses", "COMPLETED")
+                + " ELSE " + idByCode(jdbcTemplate, "transaction_statuses", "NEW") + " END, "
+                + bankChoice(bankIds, "n") + ", "
+                + "CONCAT('40817810', LPAD(CAST(MOD(n * 7, 1000000000000) AS VARCHAR), 12, '0')), "
+                + bankChoice(bankIds, "n * 3 + 1") + ", "
+                + "CONCAT('40702810', LPAD(CAST(MOD(n * 13, 1000000000000) AS VARCHAR), 12, '0')), "
+                + "LPAD(CAST(MOD(n * 7907, 10000000000) AS VARCHAR), 10, '0'), "
+                + "CONCAT('+79', LPAD(CAST(MOD(n * 31, 1000000000) AS VARCHAR), 9, '0')), "
+                + "CASEWHEN(MOD(n, 10) < 3, " + firstIncomeCategoryId + " + MOD(n, " + INCOME_CATEGORIES.size()
+                + "), " + firstExpenseCategoryId + " + MOD(n, " + EXPENSE_CATEGORIES.size() + ")), "
+                + "TIMESTAMP '2025-01-01 00:00:00', TIMESTAMP '2025-01-01 00:00:00' "
+                + "FROM SYSTEM_RANGE(?, ?) r(n)";
+
+        // Вставка частями: одна огромная транзакция раздувает файл базы H2 и работает много дольше
+        for (int from = 1; from <= rows; from += INSERT_CHUNK) {
+            jdbcTemplate.update(insert, from, Math.min(rows, from + INSERT_CHUNK - 1));
+        }
+        jdbcTemplate.execute("ANALYZE");
+
+        System.out.printf("Подготовлено %d транзакций пользователя %s за %d мс%n",
+                rows, username, (System.nanoTime() - started) / 1_000_000);
+        return user;
+    }
+
+    private static long insertCategories(JdbcTemplate jdbcTemplate, Long userId, long typeId, List<String> titles) {
+        long firstId = maxId(jdbcTemplate, "categories") + 1;
+        for (int i = 0; i < titles.size(); i++) {
+            jdbcTemplate.update("INSERT INTO categories (id, title, user_id, transaction_type_id, created, updated) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", firstId + i, titles.get(i), userId, typeId, FIRST_DATE, FIRST_DATE);
+        }
+        return firstId;
+    }
+
+    // Банк выбирается по остатку от деления выражения на количество банков
+    private static String bankChoice(List<Long> bankIds, String expression) {
+        return IntStream.range(0, bankIds.size())
+                .mapToObj(i -> " WHEN " + i + " THEN " + bankIds.get(i))
+                .collect(Collectors.joining("", "CASE MOD(" + expression + ", " + bankIds.size() + ")", " END"));
+    }
+
+    private static long maxId(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+    }
+
+    private static long idByCode(JdbcTemplate jdbcTemplate, String table, String code) {
+        return jdbcTemplate.queryForObject("SELECT id FROM " + table + " WHERE code = ?", Long.class, code);
+    }
+}
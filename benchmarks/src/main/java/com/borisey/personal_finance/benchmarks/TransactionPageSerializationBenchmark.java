@@ -0,0 +1,119 @@
+package com.borisey.personal_finance.benchmarks;
+
+import com.borisey.personal_finance.dto.TransactionView;
+import com.borisey.personal_finance.models.Bank;
+import com.borisey.personal_finance.models.Category;
+import com.borisey.personal_finance.models.PersonType;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatus;
+import com.borisey.personal_finance.models.TransactionType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация страницы транзакций в JSON в том виде, в котором ее отдает GET /api/transactions:
+// списком сущностей Transaction со связанными справочниками и списком плоских TransactionView.
+// ObjectMapper собирается так же, как в приложении (Jackson2ObjectMapperBuilder), данные строятся в памяти
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionPageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Map<String, Object> entityPage;
+    private Map<String, Object> viewPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        PersonType personType = new PersonType(PersonType.INDIVIDUAL, "Физическое лицо");
+        personType.setId(1L);
+        TransactionType expense = new TransactionType(TransactionType.EXPENSE, "Списание");
+        expense.setId(2L);
+        TransactionStatus status = new TransactionStatus("NEW", "Новая");
+        status.setId(1L);
+        Bank senderBank = new Bank("Сбербанк", "044525225");
+        senderBank.setId(1L);
+        Bank recipientBank = new Bank("ВТБ", "044525187");
+        recipientBank.setId(2L);
+        Category category = new Category();
+        category.setId(5L);
+        category.setTitle("Продукты");
+        category.setTransactionType(expense);
+
+        List<Transaction> transactions = new ArrayList<>(pageSize);
+        List<TransactionView> views = new ArrayList<>(pageSize);
+        for (int n = 1; n <= pageSize; n++) {
+            LocalDateTime operationDateTime = SyntheticTransactions.BASE_DATE.minusMinutes(n * 7919L);
+            BigDecimal amount = BigDecimal.valueOf(n * 104729L % 100000, 2).add(BigDecimal.ONE);
+            String sourceAccount = "40817810" + String.format("%012d", n * 7L);
+            String recipientAccount = "40702810" + String.format("%012d", n * 13L);
+            String inn = String.format("%010d", n * 7907L);
+            String phone = "+79" + String.format("%09d", n * 31L);
+
+            Transaction transaction = new Transaction();
+            transaction.setId((long) n);
+            transaction.setPersonType(personType);
+            transaction.setOperationDateTime(operationDateTime);
+            transaction.setTransactionType(expense);
+            transaction.setComment("Платеж " + n);
+            transaction.setAmount(amount);
+            transaction.setStatus(status);
+            transaction.setSenderBank(senderBank);
+            transaction.setSourceAccountNumber(sourceAccount);
+            transaction.setRecipientBank(recipientBank);
+            transaction.setRecipientAccountNumber(recipientAccount);
+            transaction.setRecipientInn(inn);
+            transaction.setRecipientPhone(phone);
+            transaction.setCategory(category);
+            transaction.setCreated(SyntheticTransactions.BASE_DATE);
+            transaction.setUpdated(SyntheticTransactions.BASE_DATE);
+            transactions.add(transaction);
+
+            views.add(new TransactionView((long) n, operationDateTime, amount, "Платеж " + n,
+                    personType.getId(), expense.getId(), expense.getCode(), expense.getTitle(),
+                    status.getId(), status.getCode(), status.getTitle(),
+                    senderBank.getId(), senderBank.getTitle(), sourceAccount,
+                    recipientBank.getId(), recipientBank.getTitle(), recipientAccount, inn, phone,
+                    category.getId(), category.getTitle(), SyntheticTransactions.BASE_DATE,
+                    SyntheticTransactions.BASE_DATE));
+        }
+        entityPage = page(transactions);
+        viewPage = page(views);
+    }
+
+    @Benchmark
+    public byte[] transactionEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(entityPage);
+    }
+
+    @Benchmark
+    public byte[] transactionViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(viewPage);
+    }
+
+    private Map<String, Object> page(List<?> content) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("transactions", content);
+        response.put("currentPage", 0);
+        response.put("totalItems", 10_000L);
+        response.put("totalPages", (10_000 + pageSize - 1) / pageSize);
+        return response;
+    }
+}
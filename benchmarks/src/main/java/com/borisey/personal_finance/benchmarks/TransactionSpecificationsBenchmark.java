@@ -0,0 +1,64 @@
+package com.borisey.personal_finance.benchmarks;
+
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.specifications.TransactionFilter;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Сборка условий списка транзакций: композиция Specification из фильтров запроса
+// и построение по ней предиката Criteria API (без обращения к БД)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionSpecificationsBenchmark {
+
+    private static final Long USER_ID = 1L;
+    private static final Long DELETED_STATUS_ID = 6L;
+
+    // user-only — только обязательные условия (пользователь и неудаленные), all-filters — все фильтры списка
+    @Param({"user-only", "all-filters"})
+    public String filters;
+
+    private ConfigurableApplicationContext context;
+    private CriteriaBuilder criteriaBuilder;
+    private TransactionFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        criteriaBuilder = context.getBean(EntityManagerFactory.class).getCriteriaBuilder();
+        filter = "all-filters".equals(filters)
+                ? new TransactionFilter(1L, 2L, SyntheticTransactions.FIRST_DATE, SyntheticTransactions.BASE_DATE,
+                        1L, "7707083893", BigDecimal.ONE, new BigDecimal("1000"), 2L, 5L)
+                : new TransactionFilter(null, null, null, null, null, null, null, null, null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Specification<Transaction> composeSpecification() {
+        return filter.toSpecification(USER_ID, DELETED_STATUS_ID);
+    }
+
+    @Benchmark
+    public Predicate buildPredicate() {
+        CriteriaQuery<Transaction> query = criteriaBuilder.createQuery(Transaction.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        return filter.toSpecification(USER_ID, DELETED_STATUS_ID).toPredicate(root, query, criteriaBuilder);
+    }
+}
@@ -0,0 +1,53 @@
+package com.borisey.personal_finance.benchmarks;
+
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.services.ReportService;
+import com.borisey.personal_finance.services.TransactionStatusRegistry;
+import com.borisey.personal_finance.specifications.TransactionFilter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Excel-отчет по всем транзакциям пользователя за два года, как GET /api/reports/transactions/excel без фильтров
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TransactionsReportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ReportService reportService;
+    private User user;
+    private Specification<Transaction> spec;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        reportService = context.getBean(ReportService.class);
+        user = SyntheticTransactions.ensureUser(context, rows);
+        Long deletedStatusId = context.getBean(TransactionStatusRegistry.class).idOf(TransactionStatusCode.DELETED);
+        spec = new TransactionFilter(null, null, null, null, null, null, null, null, null, null)
+                .toSpecification(user.getId(), deletedStatusId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] generateTransactionsReport() throws IOException {
+        return reportService.generateTransactionsReport(
+                user, spec, SyntheticTransactions.FIRST_DATE, SyntheticTransactions.BASE_DATE);
+    }
+}
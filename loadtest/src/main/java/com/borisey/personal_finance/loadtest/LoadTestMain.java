@@ -0,0 +1,141 @@
+package com.borisey.personal_finance.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузочный прогон REST API уже запущенного приложения: виртуальные пользователи входят через
+// /api/auth/login и выполняют смесь операций (Scenario). По итогам для каждой операции выводятся
+// пропускная способность и процентили задержки, результат сохраняется в JSON для сравнения прогонов.
+// java -jar loadtest.jar --concurrency=20 --duration=PT2M
+public final class LoadTestMain {
+
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10);
+
+    record Result(String started, Map<String, Object> settings, double measuredSeconds,
+                  List<EndpointStats.Summary> operations, EndpointStats.Summary login) {
+    }
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings;
+        Scenario scenario;
+        try {
+            settings = LoadTestSettings.parse(args);
+            scenario = new Scenario(settings.weights(), settings.dateFilters());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestSettings.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+        Instant startedAt = Instant.now();
+        long started = System.nanoTime();
+        long measureFrom = started + settings.warmup().toNanos();
+        long deadline = measureFrom + settings.duration().toNanos();
+
+        System.out.printf("Прогон %s: %d пользователей, прогрев %s, замер %s, операции %s%n",
+                settings.baseUrl(), settings.concurrency(), settings.warmup(), settings.duration(),
+                scenario.operations().stream().map(Scenario.Operation::name).toList());
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+        progress.scheduleAtFixedRate(() -> System.out.printf("  %4d с: %d запросов%n",
+                        (System.nanoTime() - started) / 1_000_000_000,
+                        stats.values().stream().mapToLong(EndpointStats::count).sum()),
+                PROGRESS_INTERVAL.toSeconds(), PROGRESS_INTERVAL.toSeconds(), TimeUnit.SECONDS);
+        try (ExecutorService users = Executors.newFixedThreadPool(settings.concurrency())) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                users.submit(new VirtualUser(i, settings, client, scenario, stats, measureFrom, deadline));
+            }
+        } finally {
+            progress.shutdownNow();
+        }
+        // Последние запросы могли завершиться позже окончания замера
+        double measuredSeconds = Math.max(System.nanoTime() - measureFrom, 1) / 1e9;
+
+        List<EndpointStats.Summary> operations = new ArrayList<>();
+        for (Scenario.Operation operation : scenario.operations()) {
+            EndpointStats endpoint = stats.get(operation.name());
+            if (endpoint != null) {
+                operations.add(endpoint.summary(measuredSeconds));
+            }
+        }
+        EndpointStats login = stats.getOrDefault(VirtualUser.LOGIN, new EndpointStats(VirtualUser.LOGIN));
+        Result result = new Result(startedAt.toString(), describe(settings), measuredSeconds, operations,
+                login.summary(measuredSeconds));
+
+        print(result);
+        write(settings, result);
+        if (operations.isEmpty()) {
+            System.err.println("Ни одного запроса не выполнено, проверьте адрес приложения и учетные записи");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Object> describe(LoadTestSettings settings) {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("baseUrl", settings.baseUrl().toString());
+        described.put("concurrency", settings.concurrency());
+        described.put("users", settings.users());
+        described.put("warmup", settings.warmup().toString());
+        described.put("duration", settings.duration().toString());
+        described.put("thinkTime", settings.thinkTime().toString());
+        described.put("dateFilters", settings.dateFilters());
+        described.put("seed", settings.seed());
+        described.put("weights", settings.weights());
+        return described;
+    }
+
+    private static void print(Result result) {
+        System.out.printf("%nЗамер %.1f с%n", result.measuredSeconds());
+        System.out.printf("%-26s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "Операция", "Запросов", "Ошибок", "Запр./с", "Средн.мс", "p50 мс", "p95 мс", "p99 мс", "Макс.мс");
+        long requests = 0;
+        long errors = 0;
+        for (EndpointStats.Summary summary : result.operations()) {
+            printRow(summary);
+            requests += summary.requests();
+            errors += summary.errors();
+            if (summary.errors() > 0) {
+                System.out.printf("%-26s коды ответов: %s%n", "", summary.statuses());
+            }
+        }
+        System.out.printf("%-26s %9d %7d %9.1f%n", "Всего", requests, errors, requests / result.measuredSeconds());
+        System.out.printf("%nВход (%s): %d запросов, p50 %.1f мс, p99 %.1f мс%n", VirtualUser.LOGIN,
+                result.login().requests(), result.login().p50Millis(), result.login().p99Millis());
+    }
+
+    private static void printRow(EndpointStats.Summary summary) {
+        System.out.printf("%-26s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", summary.operation(),
+                summary.requests(), summary.errors(), summary.throughput(), summary.meanMillis(),
+                summary.p50Millis(), summary.p95Millis(), summary.p99Millis(), summary.maxMillis());
+    }
+
+    private static void write(LoadTestSettings settings, Result result) throws IOException {
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(settings.result().toFile(), result);
+        System.out.println("Результат сохранен в " + settings.result());
+    }
+}
@@ -0,0 +1,98 @@
+package com.borisey.personal_finance.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Параметры прогона; задаются аргументами командной строки вида --имя=значение
+record LoadTestSettings(
+        URI baseUrl,
+        int concurrency,
+        int users,
+        String usernamePrefix,
+        String password,
+        Duration warmup,
+        Duration duration,
+        Duration thinkTime,
+        Duration requestTimeout,
+        boolean dateFilters,
+        long seed,
+        Path result,
+        Map<String, Integer> weights) {
+
+    static final String USAGE = """
+            Использование: java -jar loadtest.jar [--имя=значение ...]
+              --base-url=http://localhost:8080   адрес приложения
+              --concurrency=10                   одновременных виртуальных пользователей
+              --users=<concurrency>              сколько разных учетных записей использовать (не меньше concurrency)
+              --username-prefix=datagen-         учетные записи <префикс>user-000001, ... (профиль datagen)
+              --password=password                общий пароль учетных записей
+              --warmup=PT10S                     прогрев, запросы не попадают в отчет
+              --duration=PT1M                    длительность замера
+              --think-time=PT0S                  пауза между запросами одного пользователя
+              --request-timeout=PT2M             таймаут одного запроса
+              --date-filters=false               фильтры по периоду в формате dd.MM.yyyy (сейчас дают 400)
+              --seed=42                          зерно случайных фильтров
+              --result=loadtest-result.json      файл результатов в JSON
+              --weight.<операция>=N              доля операции в смеси, 0 исключает ее
+            """;
+
+    static LoadTestSettings parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Аргумент должен иметь вид --имя=значение: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            if (name.startsWith("weight.")) {
+                weights.put(name.substring("weight.".length()), Integer.parseInt(value));
+            } else {
+                values.put(name, value);
+            }
+        }
+
+        int concurrency = Integer.parseInt(take(values, "concurrency", "10"));
+        LoadTestSettings settings = new LoadTestSettings(
+                URI.create(stripTrailingSlash(take(values, "base-url", "http://localhost:8080"))),
+                concurrency,
+                Integer.parseInt(take(values, "users", String.valueOf(concurrency))),
+                take(values, "username-prefix", "datagen-"),
+                take(values, "password", "password"),
+                Duration.parse(take(values, "warmup", "PT10S")),
+                Duration.parse(take(values, "duration", "PT1M")),
+                Duration.parse(take(values, "think-time", "PT0S")),
+                Duration.parse(take(values, "request-timeout", "PT2M")),
+                Boolean.parseBoolean(take(values, "date-filters", "false")),
+                Long.parseLong(take(values, "seed", "42")),
+                Path.of(take(values, "result", "loadtest-result.json")),
+                weights);
+
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Неизвестные параметры: " + values.keySet());
+        }
+        if (settings.concurrency() < 1 || settings.users() < 1) {
+            throw new IllegalArgumentException("concurrency и users должны быть положительными");
+        }
+        // У пользователя может быть только одна сессия (WebSecurityConfig), поэтому виртуальные
+        // пользователи с общей учетной записью вытесняли бы друг друга
+        if (settings.users() < settings.concurrency()) {
+            throw new IllegalArgumentException("users не может быть меньше concurrency");
+        }
+        return settings;
+    }
+
+    // Значение извлекается из разобранных аргументов: оставшиеся в конце — неизвестные параметры
+    private static String take(Map<String, String> values, String name, String defaultValue) {
+        String value = values.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,176 @@
+package com.borisey.personal_finance.loadtest;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+
+// Смесь операций прогона. Каждая операция строит адрес GET-запроса со случайными параметрами;
+// доли операций по умолчанию приближены к работе интерфейса: чаще всего открывается список
+// транзакций, реже — статистика и итоги по категориям, выгрузки в Excel — единицы процентов
+final class Scenario {
+
+    record Operation(String name, int defaultWeight, BiFunction<UserData, SplittableRandom, String> path) {
+    }
+
+    // Формат дат в списке транзакций, статистике и итогах по категориям
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    // Периоды фильтров, дней
+    private static final int[] PERIODS = {7, 30, 90, 365};
+    // Глубина истории данных профиля datagen, дней
+    private static final int HISTORY_DAYS = 730;
+    private static final String[] TYPE_CODES = {"INCOME", "EXPENSE"};
+
+    private final boolean dateFilters;
+    private final List<Operation> operations = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    private List<Operation> allOperations() {
+        return List.of(
+                new Operation("transactions", 40, this::transactions),
+                new Operation("stats-count-by-period", 4, (data, random) ->
+                        "/api/transactions/stats/count-by-period?period="
+                                + new String[]{"week", "month", "quarter", "year"}[random.nextInt(4)]),
+                new Operation("stats-amount-by-type", 4, (data, random) ->
+                        "/api/transactions/stats/amount-by-type?typeCode="
+                                + TYPE_CODES[random.nextInt(TYPE_CODES.length)] + datePeriod(random, "startDate", "endDate")),
+                new Operation("stats-income-vs-expense", 4, (data, random) ->
+                        "/api/transactions/stats/income-vs-expense?" + datePeriod(random, "startDate", "endDate")),
+                new Operation("stats-count-by-status", 4, (data, random) -> "/api/transactions/stats/count-by-status"),
+                new Operation("stats-count-by-bank", 4, (data, random) -> "/api/transactions/stats/count-by-bank"),
+                new Operation("stats-amount-by-category", 4, (data, random) ->
+                        "/api/transactions/stats/amount-by-category?typeCode="
+                                + TYPE_CODES[random.nextInt(TYPE_CODES.length)]),
+                new Operation("categories-with-totals", 15, (data, random) ->
+                        "/api/categories/with-totals?transactionTypeId="
+                                + data.transactionTypeIds().get(TYPE_CODES[random.nextInt(TYPE_CODES.length)])
+                                + datePeriod(random, "startDate", "endDate")),
+                new Operation("excel-transactions", 3, this::transactionsExcel),
+                new Operation("excel-categories", 3, (data, random) ->
+                        "/api/reports/categories/excel?typeCode=" + TYPE_CODES[random.nextInt(TYPE_CODES.length)]),
+                new Operation("excel-dashboard", 3, (data, random) -> {
+                    LocalDate start = randomStart(random);
+                    return "/api/reports/dashboard/excel?startDate=" + start.atStartOfDay()
+                            + "&endDate=" + start.plusDays(PERIODS[random.nextInt(PERIODS.length)]).atStartOfDay();
+                }));
+    }
+
+    Scenario(Map<String, Integer> weights, boolean dateFilters) {
+        this.dateFilters = dateFilters;
+        List<Operation> all = allOperations();
+        Map<String, Integer> unknown = new LinkedHashMap<>(weights);
+        List<Integer> selected = new ArrayList<>();
+        for (Operation operation : all) {
+            Integer weight = unknown.remove(operation.name());
+            int effective = weight != null ? weight : operation.defaultWeight();
+            if (effective > 0) {
+                operations.add(operation);
+                selected.add(effective);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Неизвестные операции: " + unknown.keySet()
+                    + ", доступны: " + all.stream().map(Operation::name).toList());
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Все операции исключены из смеси");
+        }
+        cumulativeWeights = new int[selected.size()];
+        int sum = 0;
+        for (int i = 0; i < selected.size(); i++) {
+            sum += selected.get(i);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    Operation next(SplittableRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        return operations.getLast();
+    }
+
+    List<Operation> operations() {
+        return operations;
+    }
+
+    // Список транзакций: каждый фильтр добавляется независимо, так что встречаются и запросы
+    // без фильтров, и запросы с несколькими фильтрами сразу
+    private String transactions(UserData data, SplittableRandom random) {
+        StringBuilder query = new StringBuilder("/api/transactions?size=")
+                .append(new int[]{10, 20, 50}[random.nextInt(3)]);
+        appendFilters(query, data, random, true);
+        if (random.nextInt(100) < 20) {
+            query.append("&sortBy=amount&sortDir=").append(random.nextBoolean() ? "asc" : "desc");
+        }
+        // Глубокие страницы — отдельный медленный случай постраничного вывода
+        query.append("&page=").append(random.nextInt(100) < 80 ? 0 : random.nextInt(1, 20));
+        return query.toString();
+    }
+
+    private String transactionsExcel(UserData data, SplittableRandom random) {
+        // Выгрузка всегда ограничена периодом: полная выгрузка крупного пользователя занимает минуты
+        LocalDate start = randomStart(random);
+        StringBuilder query = new StringBuilder("/api/reports/transactions/excel?startDate=")
+                .append(start.atStartOfDay())
+                .append("&endDate=").append(start.plusDays(PERIODS[random.nextInt(2)]).atStartOfDay());
+        appendFilters(query, data, random, false);
+        return query.toString();
+    }
+
+    // Фильтры списка и выгрузки транзакций; у выгрузки период задается отдельно, в другом формате
+    private void appendFilters(StringBuilder query, UserData data, SplittableRandom random,
+                                      boolean withPeriod) {
+        if (withPeriod && random.nextInt(100) < 50) {
+            query.append(datePeriod(random, "startDate", "endDate"));
+        }
+        if (random.nextInt(100) < 20) {
+            query.append("&statusId=").append(pick(data.statusIds(), random));
+        }
+        if (random.nextInt(100) < 30) {
+            query.append("&transactionTypeId=").append(data.transactionTypeIds().get(TYPE_CODES[random.nextInt(2)]));
+        }
+        if (random.nextInt(100) < 20 && !data.categoryIds().isEmpty()) {
+            query.append("&categoryId=").append(pick(data.categoryIds(), random));
+        }
+        if (random.nextInt(100) < 10 && !data.bankIds().isEmpty()) {
+            query.append("&senderBankId=").append(pick(data.bankIds(), random));
+        }
+        if (random.nextInt(100) < 10 && !data.bankIds().isEmpty()) {
+            query.append("&recipientBankId=").append(pick(data.bankIds(), random));
+        }
+        if (random.nextInt(100) < 15) {
+            int min = random.nextInt(0, 5_000);
+            query.append("&minAmount=").append(min).append("&maxAmount=").append(min + random.nextInt(100, 50_000));
+        }
+        // Поиск по ИНН — точное совпадение, случайный ИНН почти всегда ничего не находит
+        if (random.nextInt(100) < 5) {
+            query.append("&inn=77").append(random.nextLong(10_000_000L, 100_000_000L));
+        }
+    }
+
+    // Период в формате dd.MM.yyyy; при --date-filters=false не добавляется, и действуют периоды по умолчанию
+    private String datePeriod(SplittableRandom random, String startName, String endName) {
+        if (!dateFilters) {
+            return "";
+        }
+        LocalDate start = randomStart(random);
+        return "&" + startName + "=" + start.format(DATE)
+                + "&" + endName + "=" + start.plusDays(PERIODS[random.nextInt(PERIODS.length)]).format(DATE);
+    }
+
+    private static LocalDate randomStart(SplittableRandom random) {
+        return LocalDate.now().minusDays(random.nextInt(1, HISTORY_DAYS));
+    }
+
+    private static Long pick(List<Long> ids, SplittableRandom random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,13 @@
+package com.borisey.personal_finance.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+// Справочные идентификаторы, из которых виртуальный пользователь собирает фильтры запросов.
+// Категории у каждого пользователя свои, поэтому данные загружаются после входа
+record UserData(
+        Map<String, Long> transactionTypeIds,
+        List<Long> statusIds,
+        List<Long> bankIds,
+        List<Long> categoryIds) {
+}
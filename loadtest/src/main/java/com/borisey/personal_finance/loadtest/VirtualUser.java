@@ -0,0 +1,156 @@
+package com.borisey.personal_finance.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+// Виртуальный пользователь: входит под своей учетной записью, загружает справочники и до конца
+// прогона в замкнутом цикле выполняет операции смеси. Запросы, завершившиеся до конца прогрева,
+// в отчет не попадают; начатые до конца замера дожидаются ответа и учитываются. Вход записывается всегда
+final class VirtualUser implements Runnable {
+
+    static final String LOGIN = "auth-login";
+
+    private final int index;
+    private final LoadTestSettings settings;
+    private final HttpClient client;
+    private final Scenario scenario;
+    private final Map<String, EndpointStats> stats;
+    private final long measureFrom;
+    private final long deadline;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SplittableRandom random;
+    private String cookie;
+
+    VirtualUser(int index, LoadTestSettings settings, HttpClient client, Scenario scenario,
+                Map<String, EndpointStats> stats, long measureFrom, long deadline) {
+        this.index = index;
+        this.settings = settings;
+        this.client = client;
+        this.scenario = scenario;
+        this.stats = stats;
+        this.measureFrom = measureFrom;
+        this.deadline = deadline;
+        this.random = new SplittableRandom(settings.seed() * 31 + index);
+    }
+
+    @Override
+    public void run() {
+        try {
+            login();
+            UserData data = loadUserData();
+            while (System.nanoTime() < deadline) {
+                Scenario.Operation operation = scenario.next(random);
+                execute(operation.name(), get(operation.path().apply(data, random)));
+                if (!settings.thinkTime().isZero()) {
+                    Thread.sleep(settings.thinkTime());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.printf("Виртуальный пользователь %d остановлен: %s%n", index, e.getMessage());
+        }
+    }
+
+    private String username() {
+        return String.format("%suser-%06d", settings.usernamePrefix(), index % settings.users() + 1);
+    }
+
+    private void login() throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(
+                Map.of("username", username(), "password", settings.password()));
+        HttpRequest request = HttpRequest.newBuilder(settings.baseUrl().resolve("/api/auth/login"))
+                .timeout(settings.requestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long started = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        stats.computeIfAbsent(LOGIN, EndpointStats::new)
+                .record(System.nanoTime() - started, response.statusCode(), response.body().length());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("вход под " + username() + " вернул " + response.statusCode());
+        }
+        // Сессия передается cookie из Set-Cookie (JSESSIONID)
+        cookie = response.headers().allValues("Set-Cookie").stream()
+                .map(value -> value.split(";", 2)[0])
+                .collect(Collectors.joining("; "));
+    }
+
+    private UserData loadUserData() throws IOException, InterruptedException {
+        JsonNode reference = fetchJson("/api/reference/all");
+        Map<String, Long> transactionTypeIds = new LinkedHashMap<>();
+        reference.path("transactionTypes").forEach(type ->
+                transactionTypeIds.put(type.path("code").asText(), type.path("id").asLong()));
+        // Список банков доступен только администратору, поэтому банки для фильтров берутся
+        // из последних транзакций пользователя
+        Set<Long> bankIds = new LinkedHashSet<>();
+        fetchJson("/api/transactions?size=100").path("transactions").forEach(transaction -> {
+            bankIds.add(transaction.path("senderBankId").asLong());
+            bankIds.add(transaction.path("recipientBankId").asLong());
+        });
+        bankIds.remove(0L);
+        return new UserData(transactionTypeIds, ids(reference.path("transactionStatuses")),
+                List.copyOf(bankIds), ids(fetchJson("/api/categories")));
+    }
+
+    private JsonNode fetchJson(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(get(path), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " вернул " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static List<Long> ids(JsonNode items) {
+        List<Long> ids = new ArrayList<>();
+        items.forEach(item -> ids.add(item.path("id").asLong()));
+        return ids;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(settings.baseUrl() + path))
+                .timeout(settings.requestTimeout())
+                .header("Cookie", cookie)
+                .GET()
+                .build();
+    }
+
+    // Время считается до получения последнего байта ответа: для выгрузок важна полная передача файла
+    private void execute(String operation, HttpRequest request) throws InterruptedException {
+        long started = System.nanoTime();
+        int status;
+        long bytes;
+        try {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            status = response.statusCode();
+            try (InputStream body = response.body()) {
+                bytes = body.transferTo(OutputStream.nullOutputStream());
+            }
+        } catch (IOException e) {
+            status = 0;
+            bytes = 0;
+        }
+        long finished = System.nanoTime();
+        if (finished >= measureFrom) {
+            stats.computeIfAbsent(operation, EndpointStats::new).record(finished - started, status, bytes);
+        }
+    }
+}
@@ -41,11 +41,13 @@ public class PersonalFinanceApplication implements CommandLineRunner {
 		if (personTypeRepository.count() == 0) {
 			PersonType personType1 = new PersonType();
 			personType1.setId(1L);
+			personType1.setCode(PersonType.INDIVIDUAL);
 			personType1.setTitle("Физическое лицо");
 			personTypeRepository.save(personType1);
 
 			PersonType personType2 = new PersonType();
 			personType2.setId(2L);
+			personType2.setCode(PersonType.LEGAL);
 			personType2.setTitle("Юридическое лицо");
 			personTypeRepository.save(personType2);
 		}
@@ -1,8 +1,14 @@
 package com.borisey.personal_finance;
 
 import com.borisey.personal_finance.repo.UserRepository;
+import com.borisey.personal_finance.services.CurrentUserCache;
 import com.borisey.personal_finance.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,6 +22,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -30,6 +37,13 @@ public class WebSecurityConfig {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
+    // Отдельный порт actuator; -1 — actuator работает на основном порту приложения
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -50,6 +64,13 @@ public class WebSecurityConfig {
                                 "/js/**"
                         )
                         .permitAll()
+                        // Проверки здоровья приходят без сессии
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        // Сборщик метрик (Prometheus) тоже приходит без сессии, поэтому без входа метрики
+                        // отдаются только на отдельном порту actuator, закрытом от внешней сети
+                        .requestMatchers(new AndRequestMatcher(
+                                EndpointRequest.to(PrometheusScrapeEndpoint.class), this::isManagementPort))
+                        .permitAll()
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().authenticated()
                 )
@@ -70,9 +91,13 @@ public class WebSecurityConfig {
         return http.build();
     }
 
+    private boolean isManagementPort(HttpServletRequest request) {
+        return managementPort > 0 && request.getLocalPort() == managementPort;
+    }
+
     @Bean
     public UserDetailsService userDetailsService() {
-        return new UserService(userRepository, bCryptPasswordEncoder());
+        return new UserService(userRepository, bCryptPasswordEncoder(), currentUserCache);
     }
 
     @Bean
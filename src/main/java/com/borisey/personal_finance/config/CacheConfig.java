@@ -0,0 +1,136 @@
+package com.borisey.personal_finance.config;
+
+import com.borisey.personal_finance.services.InMemoryUserDataVersions;
+import com.borisey.personal_finance.services.RedisUserDataVersions;
+import com.borisey.personal_finance.services.UserDataVersions;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Кэши приложения за абстракцией Spring Cache. По умолчанию — Caffeine в памяти процесса;
+// при spring.cache.type=redis те же кэши хранятся в Redis (подключение из spring.data.redis.*).
+// Для остальных значений spring.cache.type (simple, none) менеджер создает автоконфигурация Spring Boot.
+// Попадания и промахи видны в метриках cache.gets (/actuator/metrics)
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    private record CacheSettings(Duration ttl, long maxSize) {
+    }
+
+    private static final Map<String, CacheSettings> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put(CacheNames.USERS, new CacheSettings(Duration.ofMinutes(5), 1_000));
+        DEFAULTS.put(CacheNames.REFERENCE_DATA, new CacheSettings(Duration.ofHours(1), 10));
+        DEFAULTS.put(CacheNames.BANKS, new CacheSettings(Duration.ofHours(1), 200));
+        DEFAULTS.put(CacheNames.CATEGORIES, new CacheSettings(Duration.ofMinutes(10), 5_000));
+        DEFAULTS.put(CacheNames.STATS, new CacheSettings(Duration.ofMinutes(5), 10_000));
+        DEFAULTS.put(CacheNames.TRANSACTION_COUNTS, new CacheSettings(Duration.ofSeconds(30), 10_000));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "caffeine", matchIfMissing = true)
+    public CacheManager caffeineCacheManager(Environment environment) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Только перечисленные кэши: обращение по неизвестному имени не создаст кэш без ограничений
+        cacheManager.setCacheNames(DEFAULTS.keySet());
+        settings(environment).forEach((name, settings) -> {
+            cacheManager.registerCustomCache(name, Caffeine.newBuilder()
+                    .expireAfterWrite(settings.ttl())
+                    .maximumSize(settings.maxSize())
+                    .recordStats()
+                    .build());
+            logger.info("Кэш '{}' (Caffeine): время жизни {}, не более {} записей",
+                    name, settings.ttl(), settings.maxSize());
+        });
+        return cacheManager;
+    }
+
+    // Значения сериализуются стандартной сериализацией Java, поэтому кэшируемые объекты Serializable.
+    // Размер в Redis не ограничивается: вытеснением занимается сам Redis (maxmemory-policy)
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public CacheManager redisCacheManager(
+            RedisConnectionFactory connectionFactory,
+            Environment environment,
+            ResourceLoader resourceLoader,
+            @Value("${cache.redis.key-prefix:personal-finance:}") String keyPrefix) {
+        Map<String, RedisCacheConfiguration> configurations = new LinkedHashMap<>();
+        settings(environment).forEach((name, settings) -> {
+            configurations.put(name, RedisCacheConfiguration.defaultCacheConfig(resourceLoader.getClassLoader())
+                    .entryTtl(settings.ttl())
+                    .prefixCacheNameWith(keyPrefix));
+            logger.info("Кэш '{}' (Redis): время жизни {}", name, settings.ttl());
+        });
+        return RedisCacheManager.builder(connectionFactory)
+                .withInitialCacheConfigurations(configurations)
+                .disableCreateOnMissingCache()
+                .enableStatistics()
+                .build();
+    }
+
+    // С общим кэшем версии данных тоже хранятся в Redis, иначе запись на одном экземпляре
+    // приложения не меняла бы ключи на остальных и они отдавали бы прежние значения
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public UserDataVersions redisUserDataVersions(
+            StringRedisTemplate redisTemplate,
+            @Value("${cache.redis.key-prefix:personal-finance:}") String keyPrefix) {
+        return new RedisUserDataVersions(redisTemplate, keyPrefix);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(UserDataVersions.class)
+    public UserDataVersions inMemoryUserDataVersions() {
+        return new InMemoryUserDataVersions();
+    }
+
+    // Ключ для кэшей данных пользователя: первый аргумент метода — ID пользователя. В ключ входит
+    // версия его данных (UserDataVersions), поэтому после записи транзакций или категорий старые
+    // записи перестают находиться и вытесняются по времени жизни
+    @Bean
+    public KeyGenerator userDataKeyGenerator(UserDataVersions dataVersions) {
+        return (target, method, params) -> {
+            Long userId = (Long) params[0];
+            StringJoiner key = new StringJoiner("|")
+                    .add(method.getName())
+                    .add(String.valueOf(userId))
+                    .add("v" + dataVersions.current(userId));
+            for (int i = 1; i < params.length; i++) {
+                key.add(String.valueOf(params[i]));
+            }
+            return key.toString();
+        };
+    }
+
+    private static Map<String, CacheSettings> settings(Environment environment) {
+        Map<String, CacheSettings> settings = new LinkedHashMap<>();
+        DEFAULTS.forEach((name, defaults) -> settings.put(name, new CacheSettings(
+                environment.getProperty("cache." + name + ".ttl", Duration.class, defaults.ttl()),
+                environment.getProperty("cache." + name + ".max-size", Long.class, defaults.maxSize()))));
+        return settings;
+    }
+}
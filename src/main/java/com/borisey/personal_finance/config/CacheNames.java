@@ -0,0 +1,21 @@
+package com.borisey.personal_finance.config;
+
+// Имена кэшей приложения; размер и время жизни каждого задаются свойствами cache.<имя>.max-size и cache.<имя>.ttl
+public final class CacheNames {
+
+    // Пользователи по ID для подстановки текущего пользователя в запросы
+    public static final String USERS = "users";
+    // Снимок справочников (типы лиц, типы и статусы транзакций, банки) с ETag
+    public static final String REFERENCE_DATA = "reference-data";
+    // Списки банков, прочитанные из БД: сортировка по произвольному полю и поиск
+    public static final String BANKS = "banks";
+    // Списки категорий пользователя
+    public static final String CATEGORIES = "categories";
+    // Статистика по транзакциям пользователя
+    public static final String STATS = "stats";
+    // Общее количество транзакций по набору фильтров
+    public static final String TRANSACTION_COUNTS = "transaction-counts";
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,32 @@
+package com.borisey.personal_finance.config;
+
+import com.borisey.personal_finance.services.BudgetService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+// Заполняет месячные расходы по категориям по уже существующим транзакциям при первом запуске;
+// при transactions.aggregates.rebuild-on-startup=true пересчитывает их заново при каждом запуске
+@Component
+public class CategorySpendInitializer implements CommandLineRunner {
+
+    private final BudgetService budgetService;
+    private final boolean rebuildOnStartup;
+
+    @Autowired
+    public CategorySpendInitializer(BudgetService budgetService,
+            @Value("${transactions.aggregates.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.budgetService = budgetService;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (rebuildOnStartup) {
+            budgetService.rebuild();
+        } else {
+            budgetService.rebuildIfEmpty();
+        }
+    }
+}
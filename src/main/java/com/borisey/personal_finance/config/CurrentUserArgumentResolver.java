@@ -0,0 +1,36 @@
+package com.borisey.personal_finance.config;
+
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.services.CurrentUserCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+// Подставляет текущего пользователя в параметры, помеченные @CurrentUser
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final CurrentUserCache currentUserCache;
+
+    @Autowired
+    public CurrentUserArgumentResolver(CurrentUserCache currentUserCache) {
+        this.currentUserCache = currentUserCache;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && User.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return currentUserCache.fromAuthentication(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
@@ -0,0 +1,32 @@
+package com.borisey.personal_finance.config;
+
+import com.borisey.personal_finance.services.TransactionStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+// Заполняет дневные агрегаты по уже существующим транзакциям при первом запуске;
+// при transactions.aggregates.rebuild-on-startup=true пересчитывает их заново при каждом запуске
+@Component
+public class DailyStatsInitializer implements CommandLineRunner {
+
+    private final TransactionStatsService transactionStatsService;
+    private final boolean rebuildOnStartup;
+
+    @Autowired
+    public DailyStatsInitializer(TransactionStatsService transactionStatsService,
+            @Value("${transactions.aggregates.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.transactionStatsService = transactionStatsService;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (rebuildOnStartup) {
+            transactionStatsService.rebuild();
+        } else {
+            transactionStatsService.rebuildIfEmpty();
+        }
+    }
+}
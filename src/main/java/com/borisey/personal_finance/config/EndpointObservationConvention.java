@@ -0,0 +1,32 @@
+package com.borisey.personal_finance.config;
+
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Таймер http.server.requests уже есть у каждого запроса (теги uri, method, status, outcome, exception).
+// Сюда добавляется тег endpoint — метод контроллера, например TransactionController.getAllTransactions,
+// чтобы медленный путь сразу указывал на код. Запросы, не дошедшие до контроллера (отказ в доступе,
+// статика), помечаются none
+@Component
+public class EndpointObservationConvention extends DefaultServerRequestObservationConvention {
+
+    static final String NONE = "none";
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and("endpoint", endpoint(context.getCarrier()));
+    }
+
+    // Также используется SqlStatementTrackingFilter, чтобы метрики SQL совпадали по тегу с http.server.requests
+    static String endpoint(HttpServletRequest request) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+            return handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,102 @@
+package com.borisey.personal_finance.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Получает каждый выполненный JDBC-запрос от прокси пула соединений (SqlTrackingConfig).
+// Запросы считаются в счетчиках текущего HTTP-запроса, которые привязывает к потоку
+// SqlStatementTrackingFilter; запросы вне HTTP (планировщик, инициализаторы) не считаются.
+// Запросы дольше порога пишутся в журнал без значений параметров
+public class SqlStatementTracker implements QueryExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementTracker.class);
+    private static final int MAX_LOGGED_SQL_LENGTH = 2000;
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+
+    // Счетчики одного HTTP-запроса. Запросы сводного отчета выполняются параллельно
+    // на других потоках (DashboardDataLoader), поэтому счетчики атомарные
+    public static final class RequestStatements {
+        private final String request;
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong millis = new AtomicLong();
+
+        private RequestStatements(String request) {
+            this.request = request;
+        }
+
+        public int count() {
+            return count.get();
+        }
+
+        public long millis() {
+            return millis.get();
+        }
+    }
+
+    private final long slowQueryMillis;
+
+    public SqlStatementTracker(Duration slowQueryThreshold) {
+        this.slowQueryMillis = slowQueryThreshold.toMillis();
+    }
+
+    static RequestStatements start(String request) {
+        RequestStatements statements = new RequestStatements(request);
+        CURRENT.set(statements);
+        return statements;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    // Запросы задачи, выполняемой на другом потоке, учитываются в HTTP-запросе, который ее создал
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        RequestStatements statements = CURRENT.get();
+        if (statements == null) {
+            return task;
+        }
+        return () -> {
+            CURRENT.set(statements);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        RequestStatements statements = CURRENT.get();
+        if (statements != null) {
+            statements.count.incrementAndGet();
+            statements.millis.addAndGet(execution.getElapsedTime());
+        }
+        if (execution.getElapsedTime() >= slowQueryMillis) {
+            logger.warn("Медленный SQL-запрос{} ({} мс{}): {}",
+                    statements != null ? " в " + statements.request : "",
+                    execution.getElapsedTime(),
+                    execution.isBatch() ? ", пакет из " + execution.getBatchSize() : "",
+                    sql(queries));
+        }
+    }
+
+    private static String sql(List<QueryInfo> queries) {
+        String sql = queries.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        return sql.length() > MAX_LOGGED_SQL_LENGTH ? sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "…" : sql;
+    }
+}
@@ -0,0 +1,81 @@
+package com.borisey.personal_finance.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Считает SQL-запросы каждого HTTP-запроса, включая проверку сессии до контроллера.
+// По методу контроллера (тег endpoint, как у http.server.requests) публикуются распределения
+// числа запросов (http.server.requests.sql.statements) и их суммарного времени (http.server.requests.sql.time).
+// Запрос, выполнивший больше sql.tracking.max-statements-per-request запросов, пишется в журнал
+// как вероятная проблема N+1. Потоковые выгрузки формируются после выхода из фильтра,
+// поэтому их запросы сюда не попадают
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "sql.tracking.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementTrackingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementTrackingFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sql.tracking.max-statements-per-request:30}")
+    private int maxStatementsPerRequest;
+
+    @Autowired
+    public SqlStatementTrackingFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String description = request.getMethod() + " " + request.getRequestURI();
+        SqlStatementTracker.RequestStatements statements = SqlStatementTracker.start(description);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatementTracker.stop();
+            record(request, description, statements);
+        }
+    }
+
+    private void record(HttpServletRequest request, String description,
+                        SqlStatementTracker.RequestStatements statements) {
+        String endpoint = EndpointObservationConvention.endpoint(request);
+        if (statements.count() > maxStatementsPerRequest) {
+            logger.warn("{} ({}) выполнил {} SQL-запросов за {} мс, порог {}: возможна проблема N+1",
+                    description, endpoint, statements.count(), statements.millis(), maxStatementsPerRequest);
+        } else {
+            logger.debug("{}: {} SQL-запросов за {} мс", description, statements.count(), statements.millis());
+        }
+        // Запросы, не дошедшие до контроллера (статика, отказ в доступе), в метрики не попадают
+        if (EndpointObservationConvention.NONE.equals(endpoint)) {
+            return;
+        }
+
+        Tags tags = Tags.of("endpoint", endpoint);
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .baseUnit("statements")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(statements.count());
+        meterRegistry.timer("http.server.requests.sql.time", tags).record(statements.millis(), TimeUnit.MILLISECONDS);
+    }
+}
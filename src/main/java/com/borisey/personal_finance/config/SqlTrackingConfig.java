@@ -0,0 +1,37 @@
+package com.borisey.personal_finance.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Оборачивает пул соединений прокси datasource-proxy: каждый выполненный запрос передается
+// в SqlStatementTracker. Пул остается доступен через unwrap (метрики Hikari, DashboardDataLoader)
+@Configuration
+@ConditionalOnProperty(name = "sql.tracking.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlTrackingConfig {
+
+    // Статический метод: обработчик бинов создается раньше остальных бинов конфигурации
+    @Bean
+    public static BeanPostProcessor sqlTrackingDataSourcePostProcessor(Environment environment) {
+        Duration slowQueryThreshold = environment.getProperty(
+                "sql.tracking.slow-query-threshold", Duration.class, Duration.ofMillis(500));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(new SqlStatementTracker(slowQueryThreshold))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.borisey.personal_finance.config;
+
+import com.borisey.personal_finance.services.SyntheticDataGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Заполняет базу синтетическими данными при запуске с профилем datagen.
+// Запускается после инициализаторов, засевающих справочники; по умолчанию приложение затем завершается
+@Component
+@Profile("datagen")
+public class SyntheticDataRunner {
+
+    private final SyntheticDataGenerator generator;
+    private final ApplicationContext context;
+
+    @Value("${datagen.exit-after:true}")
+    private boolean exitAfter;
+
+    @Autowired
+    public SyntheticDataRunner(SyntheticDataGenerator generator, ApplicationContext context) {
+        this.generator = generator;
+        this.context = context;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void generate() throws Exception {
+        generator.generate();
+        if (exitAfter) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.borisey.personal_finance.controllers;
 
 import com.borisey.personal_finance.models.User;
 import com.borisey.personal_finance.repo.UserRepository;
+import com.borisey.personal_finance.services.CurrentUserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -30,6 +31,7 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final CurrentUserCache currentUserCache;
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
 
@@ -37,10 +39,12 @@ public class AuthController {
     public AuthController(
             UserRepository userRepository,
             PasswordEncoder passwordEncoder,
-            AuthenticationManager authenticationManager) {
+            AuthenticationManager authenticationManager,
+            CurrentUserCache currentUserCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
+        this.currentUserCache = currentUserCache;
     }
 
     @PostMapping("/login")
@@ -59,7 +63,8 @@ public class AuthController {
             HttpSession session = request.getSession(true);
             session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
 
-            User user = userRepository.findByUsername(loginRequest.getUsername());
+            // После аутентификации принципал уже содержит пользователя, загруженного UserService
+            User user = (User) authentication.getPrincipal();
 
             logger.info("Пользователь {} успешно авторизован", user.getUsername());
 
@@ -126,7 +131,7 @@ public class AuthController {
                     .body(Map.of("error", "Пользователь не авторизован"));
         }
 
-        User user = userRepository.findByUsername(authentication.getName());
+        User user = currentUserCache.fromAuthentication(authentication);
         logger.debug("Запрошена информация о текущем пользователе: {}", user.getUsername());
 
         Map<String, Object> response = new HashMap<>();
@@ -2,16 +2,19 @@ package com.borisey.personal_finance.controllers;
 
 import com.borisey.personal_finance.models.Bank;
 import com.borisey.personal_finance.repo.BankRepository;
+import com.borisey.personal_finance.services.ReferenceDataCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/banks")
@@ -20,10 +23,12 @@ public class BankController {
 
     private static final Logger logger = LoggerFactory.getLogger(BankController.class);
     private final BankRepository bankRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     @Autowired
-    public BankController(BankRepository bankRepository) {
+    public BankController(BankRepository bankRepository, ReferenceDataCache referenceDataCache) {
         this.bankRepository = bankRepository;
+        this.referenceDataCache = referenceDataCache;
         logger.info("Инициализирован контроллер банков");
     }
 
@@ -31,6 +36,15 @@ public class BankController {
     public ResponseEntity<List<Bank>> getAllBanks(@RequestParam(defaultValue = "title") String sortBy) {
         logger.info("Запрос на получение всех банков с сортировкой по полю '{}'", sortBy);
         try {
+            Optional<List<Bank>> cachedBanks = referenceDataCache.banksSortedBy(sortBy);
+            if (cachedBanks.isPresent()) {
+                logger.info("Успешно получен список из {} банков из кэша справочников", cachedBanks.get().size());
+                return ResponseEntity.ok()
+                        .eTag(referenceDataCache.banksEtag(sortBy))
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(cachedBanks.get());
+            }
+
             List<Bank> banks = bankRepository.findAll(Sort.by(Sort.Direction.ASC, sortBy));
             logger.info("Успешно получен список из {} банков", banks.size());
             return new ResponseEntity<>(banks, HttpStatus.OK);
@@ -77,6 +91,7 @@ public class BankController {
         logger.info("Запрос на создание нового банка: {}", bank.getTitle());
         try {
             Bank savedBank = bankRepository.save(bank);
+            referenceDataCache.refresh();
             logger.info("Успешно создан новый банк с ID: {}", savedBank.getId());
             return new ResponseEntity<Bank>(savedBank, HttpStatus.CREATED);
         } catch (Exception e) {
@@ -94,6 +109,7 @@ public class BankController {
                         bank.setTitle(bankDetails.getTitle());
                         bank.setBik(bankDetails.getBik());
                         Bank updatedBank = bankRepository.save(bank);
+                        referenceDataCache.refresh();
                         logger.info("Успешно обновлен банк с ID: {}, новое название: {}", id, updatedBank.getTitle());
                         return new ResponseEntity<Bank>(updatedBank, HttpStatus.OK);
                     })
@@ -114,6 +130,7 @@ public class BankController {
             return bankRepository.findById(id)
                     .map(bank -> {
                         bankRepository.delete(bank);
+                        referenceDataCache.refresh();
                         logger.info("Успешно удален банк с ID: {}, название: {}", id, bank.getTitle());
                         return new ResponseEntity<String>("Банк успешно удален", HttpStatus.OK);
                     })
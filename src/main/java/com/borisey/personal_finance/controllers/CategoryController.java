@@ -1,10 +1,16 @@
 package com.borisey.personal_finance.controllers;
 
+import com.borisey.personal_finance.config.CurrentUser;
+import com.borisey.personal_finance.dto.BudgetStatus;
+import com.borisey.personal_finance.dto.CategoryTotal;
 import com.borisey.personal_finance.models.Category;
+import com.borisey.personal_finance.models.TransactionStatusCode;
 import com.borisey.personal_finance.models.User;
 import com.borisey.personal_finance.repo.CategoryRepository;
 import com.borisey.personal_finance.repo.TransactionTypeRepository;
-import com.borisey.personal_finance.repo.UserRepository;
+import com.borisey.personal_finance.services.BudgetService;
+import com.borisey.personal_finance.services.TransactionStatusRegistry;
+import com.borisey.personal_finance.services.UserDataVersions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,11 +19,11 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,33 +35,38 @@ public class CategoryController {
     private static final Logger logger = LoggerFactory.getLogger(CategoryController.class);
     private final CategoryRepository categoryRepository;
     private final TransactionTypeRepository transactionTypeRepository;
-    private final UserRepository userRepository;
+    private final UserDataVersions dataVersions;
+    private final TransactionStatusRegistry statusRegistry;
+    private final BudgetService budgetService;
 
     @Autowired
     public CategoryController(
             CategoryRepository categoryRepository,
             TransactionTypeRepository transactionTypeRepository,
-            UserRepository userRepository) {
+            UserDataVersions dataVersions,
+            TransactionStatusRegistry statusRegistry,
+            BudgetService budgetService) {
         this.categoryRepository = categoryRepository;
         this.transactionTypeRepository = transactionTypeRepository;
-        this.userRepository = userRepository;
+        this.dataVersions = dataVersions;
+        this.statusRegistry = statusRegistry;
+        this.budgetService = budgetService;
         logger.info("Инициализирован контроллер категорий");
     }
 
     @GetMapping
     public ResponseEntity<?> getAllCategories(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestParam(required = false) Long transactionTypeId,
             @RequestParam(defaultValue = "title") String sortBy) {
 
-        String username = authentication.getName();
+        String username = user.getUsername();
         logger.info("Пользователь '{}' запрашивает список категорий с сортировкой по '{}'", username, sortBy);
         if (transactionTypeId != null) {
             logger.info("Запрос с фильтром по типу транзакции ID: {}", transactionTypeId);
         }
 
         try {
-            User user = userRepository.findByUsername(username);
             List<Category> categories;
 
             if (transactionTypeId != null) {
@@ -77,14 +88,13 @@ public class CategoryController {
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getCategoryById(
-            Authentication authentication,
+            @CurrentUser User user,
             @PathVariable Long id) {
 
-        String username = authentication.getName();
+        String username = user.getUsername();
         logger.info("Пользователь '{}' запрашивает категорию с ID: {}", username, id);
 
         try {
-            User user = userRepository.findByUsername(username);
             Category category = categoryRepository.findByIdAndUserId(id, user.getId());
 
             if (category == null) {
@@ -103,13 +113,13 @@ public class CategoryController {
 
     @GetMapping("/with-totals")
     public ResponseEntity<?> getCategoriesWithTotals(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestParam Long transactionTypeId,
             @RequestParam(required = false) @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDateTime endDate,
             @RequestParam(defaultValue = "title") String sortBy) {
 
-        String username = authentication.getName();
+        String username = user.getUsername();
         logger.info("Пользователь '{}' запрашивает категории с итогами, тип транзакции: {}", username, transactionTypeId);
 
         if (startDate != null) {
@@ -120,7 +130,6 @@ public class CategoryController {
         }
 
         try {
-            User user = userRepository.findByUsername(username);
 
             if (startDate == null) {
                 startDate = LocalDateTime.now().minusMonths(1);
@@ -132,17 +141,18 @@ public class CategoryController {
                 logger.info("Установлена дефолтная конечная дата: {}", endDate);
             }
 
-            List<Object[]> categoriesWithTotals = categoryRepository.findCategoriesWithTotalAmount(
+            List<CategoryTotal> categoryTotals = categoryRepository.findCategoryTotals(
                     user.getId(),
                     transactionTypeId,
                     startDate,
                     endDate,
-                    Sort.by(Sort.Direction.ASC, sortBy));
+                    statusRegistry.idOf(TransactionStatusCode.DELETED),
+                    CategoryRepository.categoryTotalsSort(sortBy));
 
-            Map<String, Object> result = new HashMap<>();
-            for (Object[] row : categoriesWithTotals) {
-                Category category = (Category) row[0];
-                result.put(category.getTitle(), row[1]);
+            // Сохраняем порядок сортировки из запроса
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (CategoryTotal categoryTotal : categoryTotals) {
+                result.put(categoryTotal.title(), categoryTotal.totalAmount());
             }
 
             logger.info("Успешно получены итоги по {} категориям для пользователя '{}'", result.size(), username);
@@ -154,22 +164,47 @@ public class CategoryController {
         }
     }
 
+    // Бюджеты категорий и расход за месяц (по умолчанию текущий)
+    @GetMapping("/budget-status")
+    public ResponseEntity<?> getBudgetStatus(
+            @CurrentUser User user,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth period) {
+
+        String username = user.getUsername();
+        if (period == null) {
+            period = YearMonth.now();
+        }
+        logger.info("Пользователь '{}' запрашивает состояние бюджетов за {}", username, period);
+
+        try {
+            List<BudgetStatus> statuses = budgetService.budgetStatus(user.getId(), period);
+            logger.info("Состояние бюджетов по {} категориям получено для пользователя '{}'",
+                    statuses.size(), username);
+            return new ResponseEntity<>(statuses, HttpStatus.OK);
+
+        } catch (Exception e) {
+            logger.error("Ошибка при получении состояния бюджетов для пользователя '{}': {}",
+                    username, e.getMessage(), e);
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PostMapping
     public ResponseEntity<?> createCategory(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestBody Category category) {
 
-        String username = authentication.getName();
+        String username = user.getUsername();
         logger.info("Пользователь '{}' создает новую категорию: {}", username, category.getTitle());
 
         try {
-            User user = userRepository.findByUsername(username);
             category.setUser(user);
 
             category.setCreated(LocalDateTime.now());
             category.setUpdated(LocalDateTime.now());
 
             Category savedCategory = categoryRepository.save(category);
+            dataVersions.bump(user.getId());
             logger.info("Успешно создана новая категория '{}' с ID: {} для пользователя '{}'",
                     savedCategory.getTitle(), savedCategory.getId(), username);
             return new ResponseEntity<>(savedCategory, HttpStatus.CREATED);
@@ -183,15 +218,14 @@ public class CategoryController {
 
     @PutMapping("/{id}")
     public ResponseEntity<?> updateCategory(
-            Authentication authentication,
+            @CurrentUser User user,
             @PathVariable Long id,
             @RequestBody Category categoryDetails) {
 
-        String username = authentication.getName();
+        String username = user.getUsername();
         logger.info("Пользователь '{}' обновляет категорию с ID: {}", username, id);
 
         try {
-            User user = userRepository.findByUsername(username);
 
             Category category = categoryRepository.findByIdAndUserId(id, user.getId());
 
@@ -206,6 +240,7 @@ public class CategoryController {
             category.setUpdated(LocalDateTime.now());
 
             Category updatedCategory = categoryRepository.save(category);
+            dataVersions.bump(user.getId());
             logger.info("Успешно обновлена категория '{}' с ID: {} для пользователя '{}'",
                     updatedCategory.getTitle(), updatedCategory.getId(), username);
             return new ResponseEntity<>(updatedCategory, HttpStatus.OK);
@@ -219,14 +254,13 @@ public class CategoryController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteCategory(
-            Authentication authentication,
+            @CurrentUser User user,
             @PathVariable Long id) {
 
-        String username = authentication.getName();
+        String username = user.getUsername();
         logger.info("Пользователь '{}' удаляет категорию с ID: {}", username, id);
 
         try {
-            User user = userRepository.findByUsername(username);
 
             Category category = categoryRepository.findByIdAndUserId(id, user.getId());
 
@@ -236,6 +270,7 @@ public class CategoryController {
             }
 
             categoryRepository.delete(category);
+            dataVersions.bump(user.getId());
             logger.info("Успешно удалена категория '{}' с ID: {} для пользователя '{}'",
                     category.getTitle(), id, username);
             return new ResponseEntity<>("Категория успешно удалена", HttpStatus.OK);
@@ -249,14 +284,13 @@ public class CategoryController {
 
     @GetMapping("/search")
     public ResponseEntity<?> searchCategories(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestParam String term) {
 
-        String username = authentication.getName();
+        String username = user.getUsername();
         logger.info("Пользователь '{}' выполняет поиск категорий по запросу: '{}'", username, term);
 
         try {
-            User user = userRepository.findByUsername(username);
 
             List<Category> categories = categoryRepository.searchByTitle(user.getId(), term);
 
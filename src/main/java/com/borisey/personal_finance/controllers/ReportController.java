@@ -1,27 +1,43 @@
 package com.borisey.personal_finance.controllers;
 
+import com.borisey.personal_finance.config.CurrentUser;
 import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatusCode;
 import com.borisey.personal_finance.models.User;
-import com.borisey.personal_finance.repo.UserRepository;
+import com.borisey.personal_finance.services.ReportCache;
 import com.borisey.personal_finance.services.ReportService;
-import com.borisey.personal_finance.specifications.TransactionSpecifications;
+import com.borisey.personal_finance.services.TransactionExportService;
+import com.borisey.personal_finance.services.TransactionStatusRegistry;
+import com.borisey.personal_finance.specifications.TransactionFilter;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.format.DateTimeFormatter;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -29,20 +45,33 @@ import java.time.LocalDateTime;
 public class ReportController {
     private static final Logger logger = LoggerFactory.getLogger(ReportController.class);
     private final ReportService reportService;
-    private final UserRepository userRepository;
+    private final TransactionStatusRegistry statusRegistry;
+    private final TransactionExportService transactionExportService;
+    private final ReportCache reportCache;
+
+    // Интерфейс записи выгрузки в поток ответа
+    private interface ExportWriter {
+        long write(Specification<Transaction> spec, OutputStream out) throws IOException;
+    }
+
+    // Формирование отчета при промахе кэша
+    private interface ReportRenderer {
+        byte[] render() throws IOException;
+    }
 
     @Autowired
-    public ReportController(
-            ReportService reportService,
-            UserRepository userRepository) {
+    public ReportController(ReportService reportService, TransactionStatusRegistry statusRegistry,
+                            TransactionExportService transactionExportService, ReportCache reportCache) {
         this.reportService = reportService;
-        this.userRepository = userRepository;
+        this.statusRegistry = statusRegistry;
+        this.transactionExportService = transactionExportService;
+        this.reportCache = reportCache;
         logger.info("Инициализирован контроллер отчетов");
     }
 
     @GetMapping("/transactions/excel")
-    public ResponseEntity<byte[]> exportTransactionsToExcel(
-            Authentication authentication,
+    public ResponseEntity<StreamingResponseBody> exportTransactionsToExcel(
+            @CurrentUser User user,
             @RequestParam(required = false) Long senderBankId,
             @RequestParam(required = false) Long recipientBankId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
@@ -55,94 +84,187 @@ public class ReportController {
             @RequestParam(required = false) Long categoryId) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает экспорт транзакций в Excel", user.getUsername());
 
             LocalDateTime effectiveEndDate = endDate != null ? endDate : LocalDateTime.now();
             LocalDateTime effectiveStartDate = startDate != null ? startDate : effectiveEndDate.minusMonths(1);
 
-            Specification<Transaction> spec = Specification.where(
-                            TransactionSpecifications.belongsToUser(user.getId()))
-                    .and(TransactionSpecifications.notDeleted());
-
-            if (senderBankId != null) {
-                spec = spec.and(TransactionSpecifications.hasSenderBank(senderBankId));
-            }
+            Specification<Transaction> spec = new TransactionFilter(
+                    senderBankId, recipientBankId, startDate, endDate, statusId,
+                    inn, minAmount, maxAmount, transactionTypeId, categoryId)
+                    .toSpecification(user.getId(), statusRegistry.idOf(TransactionStatusCode.DELETED));
+
+            StreamingResponseBody body = outputStream -> {
+                try {
+                    reportService.writeTransactionsReport(
+                            user, spec, effectiveStartDate, effectiveEndDate, outputStream);
+                } catch (IOException e) {
+                    logger.error("Ошибка при формировании Excel отчета: {}", e.getMessage(), e);
+                    throw e;
+                }
+            };
 
-            if (recipientBankId != null) {
-                spec = spec.and(TransactionSpecifications.hasRecipientBank(recipientBankId));
-            }
+            String filename = "transactions_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
 
-            if (startDate != null && endDate != null) {
-                spec = spec.and(TransactionSpecifications.dateIsBetween(effectiveStartDate, effectiveEndDate));
-            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+            headers.setContentDispositionFormData("attachment", filename);
+            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
 
-            if (statusId != null) {
-                spec = spec.and(TransactionSpecifications.hasStatus(statusId));
-            }
+            logger.info("Начата потоковая выгрузка Excel для пользователя '{}'", user.getUsername());
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
 
-            if (inn != null) {
-                spec = spec.and(TransactionSpecifications.hasInn(inn));
-            }
+        } catch (Exception e) {
+            logger.error("Неожиданная ошибка при формировании Excel отчета: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
 
-            if (minAmount != null && maxAmount != null) {
-                spec = spec.and(TransactionSpecifications.amountIsBetween(minAmount, maxAmount));
-            }
+    // Выгрузка для интеграций: один JSON-объект транзакции на строку
+    @GetMapping("/transactions.ndjson")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsToNdjson(
+            @CurrentUser User user,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestParam(required = false) Long senderBankId,
+            @RequestParam(required = false) Long recipientBankId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Long statusId,
+            @RequestParam(required = false) String inn,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) Long transactionTypeId,
+            @RequestParam(required = false) Long categoryId) {
 
-            if (transactionTypeId != null) {
-                spec = spec.and(TransactionSpecifications.hasTransactionType(transactionTypeId));
-            }
+        logger.info("Пользователь '{}' запрашивает выгрузку транзакций в NDJSON", user.getUsername());
+        TransactionFilter filter = new TransactionFilter(
+                senderBankId, recipientBankId, startDate, endDate, statusId,
+                inn, minAmount, maxAmount, transactionTypeId, categoryId);
+        return streamExport(user, filter, acceptEncoding, MediaType.APPLICATION_NDJSON, "ndjson",
+                transactionExportService::writeNdjson);
+    }
 
-            if (categoryId != null) {
-                spec = spec.and(TransactionSpecifications.hasCategory(categoryId));
-            }
+    // Та же выгрузка в CSV (RFC 4180, UTF-8, заголовок из имен полей)
+    @GetMapping("/transactions.csv")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsToCsv(
+            @CurrentUser User user,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestParam(required = false) Long senderBankId,
+            @RequestParam(required = false) Long recipientBankId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Long statusId,
+            @RequestParam(required = false) String inn,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) Long transactionTypeId,
+            @RequestParam(required = false) Long categoryId) {
 
-            byte[] excelBytes = reportService.generateTransactionsReport(user, spec, effectiveStartDate, effectiveEndDate);
+        logger.info("Пользователь '{}' запрашивает выгрузку транзакций в CSV", user.getUsername());
+        TransactionFilter filter = new TransactionFilter(
+                senderBankId, recipientBankId, startDate, endDate, statusId,
+                inn, minAmount, maxAmount, transactionTypeId, categoryId);
+        return streamExport(user, filter, acceptEncoding, new MediaType("text", "csv", StandardCharsets.UTF_8),
+                "csv", transactionExportService::writeCsv);
+    }
 
-            String filename = "transactions_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
+    // Ответ пишется потоком; если клиент принимает gzip, он сжимается на лету
+    private ResponseEntity<StreamingResponseBody> streamExport(User user, TransactionFilter filter,
+                                                               String acceptEncoding, MediaType mediaType,
+                                                               String extension, ExportWriter writer) {
+        try {
+            Specification<Transaction> spec = filter.toSpecification(
+                    user.getId(), statusRegistry.idOf(TransactionStatusCode.DELETED));
+            boolean gzip = acceptsGzip(acceptEncoding);
+
+            StreamingResponseBody body = outputStream -> {
+                try {
+                    if (gzip) {
+                        GZIPOutputStream compressed = new GZIPOutputStream(outputStream, 8192);
+                        long rows = writer.write(spec, compressed);
+                        compressed.finish();
+                        logger.info("Выгрузка {} для пользователя '{}' завершена: {} строк (gzip)",
+                                extension, user.getUsername(), rows);
+                    } else {
+                        long rows = writer.write(spec, outputStream);
+                        logger.info("Выгрузка {} для пользователя '{}' завершена: {} строк",
+                                extension, user.getUsername(), rows);
+                    }
+                } catch (IOException e) {
+                    logger.error("Ошибка при выгрузке транзакций в {}: {}", extension, e.getMessage(), e);
+                    throw e;
+                }
+            };
+
+            String filename = "transactions_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + "." + extension;
 
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+            headers.setContentType(mediaType);
             headers.setContentDispositionFormData("attachment", filename);
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-            headers.setContentLength(excelBytes.length);
+            headers.setCacheControl("no-store");
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+            if (gzip) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
 
-            logger.info("Файл Excel успешно сформирован для пользователя '{}'", user.getUsername());
-            return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
 
-        } catch (IOException e) {
-            logger.error("Ошибка при формировании Excel отчета: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         } catch (Exception e) {
-            logger.error("Неожиданная ошибка при формировании Excel отчета: {}", e.getMessage(), e);
+            logger.error("Неожиданная ошибка при выгрузке транзакций в {}: {}", extension, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
+    // Разбор Accept-Encoding с весами: "gzip;q=0" означает отказ от gzip, "*" относится к незаданным кодировкам
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipWeight = null;
+        Double wildcardWeight = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double weight = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        weight = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        weight = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipWeight = gzipWeight == null ? weight : Math.max(gzipWeight, weight);
+            } else if (name.equals("*")) {
+                wildcardWeight = weight;
+            }
+        }
+        if (gzipWeight != null) {
+            return gzipWeight > 0;
+        }
+        return wildcardWeight != null && wildcardWeight > 0;
+    }
+
     @GetMapping("/categories/excel")
-    public ResponseEntity<byte[]> exportCategoryReportToExcel(
-            Authentication authentication,
-            @RequestParam String typeCode) {
+    public ResponseEntity<Resource> exportCategoryReportToExcel(
+            @CurrentUser User user,
+            @RequestParam String typeCode,
+            HttpServletRequest request) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает экспорт отчета по категориям типа {} в Excel",
                     user.getUsername(), typeCode);
 
-            byte[] excelBytes = reportService.generateCategoryReportByType(user, typeCode);
-
             String fileType = typeCode.equals("INCOME") ? "income" : "expense";
             String filename = "categories_" + fileType + "_" +
                     LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-            headers.setContentDispositionFormData("attachment", filename);
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-            headers.setContentLength(excelBytes.length);
-
-            logger.info("Файл Excel по категориям успешно сформирован для пользователя '{}'", user.getUsername());
-            return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
+            String cacheKey = reportCache.key(user.getId(), "CATEGORIES", typeCode);
+            return serveCachedReport(user, request, cacheKey, filename,
+                    () -> reportService.generateCategoryReportByType(user, typeCode));
 
         } catch (IOException e) {
             logger.error("Ошибка при формировании Excel отчета по категориям: {}", e.getMessage(), e);
@@ -154,34 +276,31 @@ public class ReportController {
     }
 
     @GetMapping("/dashboard/excel")
-    public ResponseEntity<byte[]> exportDashboardToExcel(
-            Authentication authentication,
+    public ResponseEntity<Resource> exportDashboardToExcel(
+            @CurrentUser User user,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            HttpServletRequest request) {
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает экспорт сводного отчета в Excel", user.getUsername());
 
-            if (startDate == null) {
-                startDate = LocalDateTime.now().minusYears(1);
-            }
+            // Период по умолчанию округляется до конца текущей минуты, иначе повторные запросы
+            // без дат никогда не совпадали бы с кэшем
             if (endDate == null) {
-                endDate = LocalDateTime.now();
+                endDate = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).plusMinutes(1).minusNanos(1);
             }
-
-            byte[] excelBytes = reportService.generateDashboardReport(user, startDate, endDate);
+            if (startDate == null) {
+                startDate = endDate.minusYears(1);
+            }
+            LocalDateTime effectiveStartDate = startDate;
+            LocalDateTime effectiveEndDate = endDate;
 
             String filename = "financial_dashboard_" +
                     LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-            headers.setContentDispositionFormData("attachment", filename);
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-            headers.setContentLength(excelBytes.length);
-
-            logger.info("Сводный отчет Excel успешно сформирован для пользователя '{}'", user.getUsername());
-            return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
+            String cacheKey = reportCache.key(user.getId(), "DASHBOARD", effectiveStartDate + "|" + effectiveEndDate);
+            return serveCachedReport(user, request, cacheKey, filename,
+                    () -> reportService.generateDashboardReport(user, effectiveStartDate, effectiveEndDate));
 
         } catch (IOException e) {
             logger.error("Ошибка при формировании сводного Excel отчета: {}", e.getMessage(), e);
@@ -191,5 +310,40 @@ public class ReportController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
-}
 
+    // Отчет отдается из дискового кэша, а формируется только при промахе. Если клиент уже
+    // получил эту версию (If-None-Match, в том числе список и слабые W/ значения), возвращается 304 без тела.
+    // ServletWebRequest без ответа только проверяет заголовок, заголовки 304 задаются здесь
+    private ResponseEntity<Resource> serveCachedReport(User user, HttpServletRequest request,
+                                                       String cacheKey, String filename,
+                                                       ReportRenderer renderer) throws IOException {
+        String etag = reportCache.etag(cacheKey);
+        if (new ServletWebRequest(request).checkNotModified(etag)) {
+            logger.info("Отчет для пользователя '{}' не изменился, ответ 304", user.getUsername());
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        }
+
+        Optional<ReportCache.CachedReport> cached = reportCache.get(cacheKey);
+        ReportCache.CachedReport report;
+        if (cached.isPresent()) {
+            report = cached.get();
+            logger.info("Отчет для пользователя '{}' взят из кэша", user.getUsername());
+        } else {
+            report = reportCache.put(cacheKey, renderer.render());
+            logger.info("Отчет для пользователя '{}' сформирован и сохранен в кэш", user.getUsername());
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.setContentDispositionFormData("attachment", filename);
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        headers.setETag(report.etag());
+
+        // Файл копируется в ответ потоком; вытесненный из кэша файл удаляется с задержкой,
+        // поэтому успевает открыться (ReportCache)
+        return new ResponseEntity<>(new FileSystemResource(report.file()), headers, HttpStatus.OK);
+    }
+}
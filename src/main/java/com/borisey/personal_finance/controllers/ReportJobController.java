@@ -0,0 +1,194 @@
+package com.borisey.personal_finance.controllers;
+
+import com.borisey.personal_finance.config.CurrentUser;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.services.ReportJob;
+import com.borisey.personal_finance.services.ReportJobRejectedException;
+import com.borisey.personal_finance.services.ReportJobService;
+import com.borisey.personal_finance.services.ReportService;
+import com.borisey.personal_finance.services.TransactionStatusRegistry;
+import com.borisey.personal_finance.specifications.TransactionFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/reports/jobs")
+@PreAuthorize("hasRole('USER')")
+public class ReportJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobController.class);
+    private static final DateTimeFormatter FILENAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private final ReportJobService reportJobService;
+    private final ReportService reportService;
+    private final TransactionStatusRegistry statusRegistry;
+
+    @Autowired
+    public ReportJobController(
+            ReportJobService reportJobService,
+            ReportService reportService,
+            TransactionStatusRegistry statusRegistry) {
+        this.reportJobService = reportJobService;
+        this.reportService = reportService;
+        this.statusRegistry = statusRegistry;
+        logger.info("Инициализирован контроллер фоновых отчетов");
+    }
+
+    @PostMapping("/transactions")
+    public ResponseEntity<?> submitTransactionsReport(
+            @CurrentUser User user,
+            @RequestParam(required = false) Long senderBankId,
+            @RequestParam(required = false) Long recipientBankId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Long statusId,
+            @RequestParam(required = false) String inn,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) Long transactionTypeId,
+            @RequestParam(required = false) Long categoryId) {
+
+        logger.info("Пользователь '{}' ставит в очередь отчет по транзакциям", user.getUsername());
+
+        LocalDateTime effectiveEndDate = endDate != null ? endDate : LocalDateTime.now();
+        LocalDateTime effectiveStartDate = startDate != null ? startDate : effectiveEndDate.minusMonths(1);
+
+        Specification<Transaction> spec = new TransactionFilter(
+                senderBankId, recipientBankId, startDate, endDate, statusId,
+                inn, minAmount, maxAmount, transactionTypeId, categoryId)
+                .toSpecification(user.getId(), statusRegistry.idOf(TransactionStatusCode.DELETED));
+
+        String filename = "transactions_" + LocalDateTime.now().format(FILENAME_FORMATTER) + ".xlsx";
+
+        return submit(user, ReportJob.Type.TRANSACTIONS, filename, out ->
+                reportService.writeTransactionsReport(user, spec, effectiveStartDate, effectiveEndDate, out));
+    }
+
+    @PostMapping("/categories")
+    public ResponseEntity<?> submitCategoryReport(
+            @CurrentUser User user,
+            @RequestParam String typeCode) {
+
+        logger.info("Пользователь '{}' ставит в очередь отчет по категориям типа {}", user.getUsername(), typeCode);
+
+        String fileType = typeCode.equals("INCOME") ? "income" : "expense";
+        String filename = "categories_" + fileType + "_" + LocalDateTime.now().format(FILENAME_FORMATTER) + ".xlsx";
+
+        return submit(user, ReportJob.Type.CATEGORIES, filename, out ->
+                out.write(reportService.generateCategoryReportByType(user, typeCode)));
+    }
+
+    @PostMapping("/dashboard")
+    public ResponseEntity<?> submitDashboardReport(
+            @CurrentUser User user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        logger.info("Пользователь '{}' ставит в очередь сводный отчет", user.getUsername());
+
+        LocalDateTime effectiveStartDate = startDate != null ? startDate : LocalDateTime.now().minusYears(1);
+        LocalDateTime effectiveEndDate = endDate != null ? endDate : LocalDateTime.now();
+
+        String filename = "financial_dashboard_" + LocalDateTime.now().format(FILENAME_FORMATTER) + ".xlsx";
+
+        return submit(user, ReportJob.Type.DASHBOARD, filename, out ->
+                out.write(reportService.generateDashboardReport(user, effectiveStartDate, effectiveEndDate)));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJobStatus(
+            @CurrentUser User user,
+            @PathVariable String jobId) {
+
+        Optional<ReportJob> job = reportJobService.findJob(jobId, user.getId());
+
+        if (job.isEmpty()) {
+            logger.warn("Задание на отчет {} не найдено для пользователя '{}'", jobId, user.getUsername());
+            return new ResponseEntity<>("Задание не найдено", HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(toResponse(job.get()), HttpStatus.OK);
+    }
+
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<?> downloadJobResult(
+            @CurrentUser User user,
+            @PathVariable String jobId) {
+
+        Optional<ReportJob> found = reportJobService.findJob(jobId, user.getId());
+
+        if (found.isEmpty()) {
+            logger.warn("Задание на отчет {} не найдено для пользователя '{}'", jobId, user.getUsername());
+            return new ResponseEntity<>("Задание не найдено", HttpStatus.NOT_FOUND);
+        }
+
+        ReportJob job = found.get();
+        if (job.getStatus() != ReportJob.Status.COMPLETED) {
+            logger.warn("Отчет по заданию {} еще не готов, статус {}", jobId, job.getStatus());
+            return new ResponseEntity<>("Отчет еще не готов, статус: " + job.getStatus(), HttpStatus.CONFLICT);
+        }
+
+        Resource resource = new FileSystemResource(job.getFile());
+        if (!resource.exists()) {
+            logger.warn("Файл отчета по заданию {} уже удален", jobId);
+            return new ResponseEntity<>("Файл отчета больше не доступен", HttpStatus.GONE);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.setContentDispositionFormData("attachment", job.getFilename());
+        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+
+        logger.info("Пользователь '{}' скачивает отчет по заданию {}", user.getUsername(), jobId);
+        return new ResponseEntity<>(resource, headers, HttpStatus.OK);
+    }
+
+    private ResponseEntity<?> submit(User user, ReportJob.Type type, String filename,
+                                     ReportJobService.ReportRenderer renderer) {
+        try {
+            ReportJob job = reportJobService.submit(user.getId(), type, filename, renderer);
+            return new ResponseEntity<>(toResponse(job), HttpStatus.ACCEPTED);
+        } catch (ReportJobRejectedException e) {
+            logger.warn("Задание на отчет {} для пользователя '{}' отклонено: {}",
+                    type, user.getUsername(), e.getMessage());
+            HttpStatus status = e.isUserLimitExceeded() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+            return new ResponseEntity<>(e.getMessage(), status);
+        } catch (Exception e) {
+            logger.error("Ошибка при постановке задания на отчет {}: {}", type, e.getMessage(), e);
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private Map<String, Object> toResponse(ReportJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("type", job.getType());
+        response.put("status", job.getStatus());
+        response.put("created", job.getCreated());
+        response.put("finished", job.getFinished());
+        response.put("error", job.getError());
+        if (job.getStatus() == ReportJob.Status.COMPLETED) {
+            response.put("downloadUrl", "/api/reports/jobs/" + job.getId() + "/download");
+        }
+        return response;
+    }
+}
@@ -1,7 +1,18 @@
 package com.borisey.personal_finance.controllers;
 
+import com.borisey.personal_finance.config.CurrentUser;
+import com.borisey.personal_finance.dto.ImportReport;
+import com.borisey.personal_finance.dto.TransactionCursor;
+import com.borisey.personal_finance.dto.TransactionView;
 import com.borisey.personal_finance.models.*;
 import com.borisey.personal_finance.repo.*;
+import com.borisey.personal_finance.services.StatementImportService;
+import com.borisey.personal_finance.services.TransactionCountCache;
+import com.borisey.personal_finance.services.TransactionImportService;
+import com.borisey.personal_finance.services.TransactionService;
+import com.borisey.personal_finance.services.TransactionStatsService;
+import com.borisey.personal_finance.services.TransactionStatusRegistry;
+import com.borisey.personal_finance.specifications.TransactionFilter;
 import com.borisey.personal_finance.specifications.TransactionSpecifications;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,17 +20,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,23 +51,35 @@ public class TransactionController {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionController.class);
     private final TransactionRepository transactionRepository;
-    private final TransactionStatusRepository statusRepository;
-    private final UserRepository userRepository;
+    private final TransactionStatusRegistry statusRegistry;
+    private final TransactionCountCache transactionCountCache;
+    private final TransactionService transactionService;
+    private final TransactionStatsService transactionStatsService;
+    private final TransactionImportService transactionImportService;
+    private final StatementImportService statementImportService;
 
     @Autowired
     public TransactionController(
             TransactionRepository transactionRepository,
-            TransactionStatusRepository statusRepository,
-            UserRepository userRepository) {
+            TransactionStatusRegistry statusRegistry,
+            TransactionCountCache transactionCountCache,
+            TransactionService transactionService,
+            TransactionStatsService transactionStatsService,
+            TransactionImportService transactionImportService,
+            StatementImportService statementImportService) {
         this.transactionRepository = transactionRepository;
-        this.statusRepository = statusRepository;
-        this.userRepository = userRepository;
+        this.statusRegistry = statusRegistry;
+        this.transactionCountCache = transactionCountCache;
+        this.transactionService = transactionService;
+        this.transactionStatsService = transactionStatsService;
+        this.transactionImportService = transactionImportService;
+        this.statementImportService = statementImportService;
         logger.info("Инициализирован контроллер транзакций");
     }
 
     @GetMapping
     public ResponseEntity<?> getAllTransactions(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestParam(required = false) Long senderBankId,
             @RequestParam(required = false) Long recipientBankId,
             @RequestParam(required = false) @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDateTime startDate,
@@ -62,12 +93,12 @@ public class TransactionController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "operationDateTime") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "page") String pagination,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
-            logger.info("Пользователь '{}' запрашивает список транзакций (страница {}, размер {})",
-                    user.getUsername(), page, size);
 
             if (senderBankId != null) logger.debug("Фильтр по банку отправителя: {}", senderBankId);
             if (recipientBankId != null) logger.debug("Фильтр по банку получателя: {}", recipientBankId);
@@ -80,48 +111,44 @@ public class TransactionController {
             if (transactionTypeId != null) logger.debug("Фильтр по типу транзакции: {}", transactionTypeId);
             if (categoryId != null) logger.debug("Фильтр по категории: {}", categoryId);
 
-            Specification<Transaction> spec = Specification.where(
-                            TransactionSpecifications.belongsToUser(user.getId()))
-                    .and(TransactionSpecifications.notDeleted());
+            TransactionFilter filter = new TransactionFilter(
+                    senderBankId, recipientBankId, startDate, endDate, statusId,
+                    inn, minAmount, maxAmount, transactionTypeId, categoryId);
+            Specification<Transaction> spec = filter.toSpecification(
+                    user.getId(), statusRegistry.idOf(TransactionStatusCode.DELETED));
 
-            if (senderBankId != null) {
-                spec = spec.and(TransactionSpecifications.hasSenderBank(senderBankId));
-            }
+            Sort.Direction direction = sortDir.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
 
-            if (recipientBankId != null) {
-                spec = spec.and(TransactionSpecifications.hasRecipientBank(recipientBankId));
+            if (pagination.equalsIgnoreCase("cursor") || (cursor != null && !cursor.isBlank())) {
+                return getTransactionsByCursor(user, filter, spec, direction, cursor, size,
+                        includeTotal != null && includeTotal);
             }
 
-            if (startDate != null && endDate != null) {
-                spec = spec.and(TransactionSpecifications.dateIsBetween(startDate, endDate));
-            }
+            logger.info("Пользователь '{}' запрашивает список транзакций (страница {}, размер {})",
+                    user.getUsername(), page, size);
 
-            if (statusId != null) {
-                spec = spec.and(TransactionSpecifications.hasStatus(statusId));
-            }
+            Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+            Map<String, Object> response = new HashMap<>();
 
-            if (inn != null) {
-                spec = spec.and(TransactionSpecifications.hasInn(inn));
-            }
+            if (includeTotal != null && !includeTotal) {
+                Slice<TransactionView> transactions = transactionRepository.findViewSlice(spec, pageable);
 
-            if (minAmount != null && maxAmount != null) {
-                spec = spec.and(TransactionSpecifications.amountIsBetween(minAmount, maxAmount));
-            }
+                response.put("transactions", transactions.getContent());
+                response.put("currentPage", transactions.getNumber());
+                response.put("hasNext", transactions.hasNext());
 
-            if (transactionTypeId != null) {
-                spec = spec.and(TransactionSpecifications.hasTransactionType(transactionTypeId));
-            }
+                logger.info("Для пользователя '{}' найдено {} транзакций на странице {} без подсчета общего количества",
+                        user.getUsername(), transactions.getContent().size(), page + 1);
 
-            if (categoryId != null) {
-                spec = spec.and(TransactionSpecifications.hasCategory(categoryId));
+                return new ResponseEntity<>(response, HttpStatus.OK);
             }
 
-            Sort.Direction direction = sortDir.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
-            Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-
-            Page<Transaction> transactions = transactionRepository.findAll(spec, pageable);
+            List<TransactionView> content = transactionRepository.findViewWindow(
+                    spec, pageable.getSort(), (int) pageable.getOffset(), size);
+            // Общее количество берется из кэша, а если оно однозначно следует из страницы, не считается вовсе
+            Page<TransactionView> transactions = PageableExecutionUtils.getPage(content, pageable,
+                    () -> transactionCountCache.count(user.getId(), filter, () -> transactionRepository.count(spec)));
 
-            Map<String, Object> response = new HashMap<>();
             response.put("transactions", transactions.getContent());
             response.put("currentPage", transactions.getNumber());
             response.put("totalItems", transactions.getTotalElements());
@@ -133,24 +160,76 @@ public class TransactionController {
 
             return new ResponseEntity<>(response, HttpStatus.OK);
 
+        } catch (IllegalArgumentException e) {
+            logger.warn("Некорректные параметры списка транзакций: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             logger.error("Ошибка при получении списка транзакций: {}", e.getMessage(), e);
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // Постраничный вывод курсором: сортировка всегда по (operationDateTime, id),
+    // следующая страница начинается строго после последней выданной транзакции,
+    // поэтому стоимость запроса не зависит от глубины прокрутки
+    private ResponseEntity<?> getTransactionsByCursor(
+            User user,
+            TransactionFilter filter,
+            Specification<Transaction> spec,
+            Sort.Direction direction,
+            String cursor,
+            int size,
+            boolean includeTotal) {
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть больше нуля");
+        }
+
+        logger.info("Пользователь '{}' запрашивает список транзакций курсором (размер {}, продолжение: {})",
+                user.getUsername(), size, cursor != null && !cursor.isBlank());
+
+        Specification<Transaction> pageSpec = spec;
+        if (cursor != null && !cursor.isBlank()) {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            pageSpec = spec.and(TransactionSpecifications.seekAfter(
+                    after.operationDateTime(), after.id(), direction == Sort.Direction.DESC));
+        }
+
+        Sort sort = Sort.by(direction, "operationDateTime").and(Sort.by(direction, "id"));
+
+        // Одна лишняя строка показывает, есть ли следующая страница, без подсчета COUNT(*)
+        List<TransactionView> rows = transactionRepository.findViewWindow(pageSpec, sort, 0, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<TransactionView> transactions = hasNext ? rows.subList(0, size) : rows;
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("transactions", transactions);
+        response.put("hasNext", hasNext);
+        response.put("nextCursor", hasNext
+                ? TransactionCursor.of(transactions.get(transactions.size() - 1)).encode()
+                : null);
+        if (includeTotal) {
+            response.put("totalItems",
+                    transactionCountCache.count(user.getId(), filter, () -> transactionRepository.count(spec)));
+        }
+
+        logger.info("Для пользователя '{}' выдано {} транзакций курсором, есть продолжение: {}",
+                user.getUsername(), transactions.size(), hasNext);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getTransactionById(
-            Authentication authentication,
+            @CurrentUser User user,
             @PathVariable Long id) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает транзакцию с ID: {}", user.getUsername(), id);
 
             Transaction transaction = transactionRepository.findByIdAndUserId(id, user.getId());
 
-            if (transaction == null || transaction.getStatus().getCode().equals("DELETED")) {
+            if (transaction == null || transaction.getStatus().getStatusCode() == TransactionStatusCode.DELETED) {
                 logger.warn("Транзакция с ID: {} не найдена для пользователя '{}'", id, user.getUsername());
                 return new ResponseEntity<>("Транзакция не найдена", HttpStatus.NOT_FOUND);
             }
@@ -166,22 +245,21 @@ public class TransactionController {
 
     @PostMapping
     public ResponseEntity<?> createTransaction(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestBody Transaction transaction) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' создает новую транзакцию", user.getUsername());
 
             transaction.setUser(user);
 
-            Optional<TransactionStatus> newStatus = statusRepository.findByCode("NEW");
+            Optional<TransactionStatus> newStatus = statusRegistry.find(TransactionStatusCode.NEW);
             newStatus.ifPresent(transaction::setStatus);
 
             transaction.setCreated(LocalDateTime.now());
             transaction.setUpdated(LocalDateTime.now());
 
-            Transaction savedTransaction = transactionRepository.save(transaction);
+            Transaction savedTransaction = transactionService.create(transaction);
             logger.info("Успешно создана транзакция с ID: {} для пользователя '{}'",
                     savedTransaction.getId(), user.getUsername());
 
@@ -193,14 +271,69 @@ public class TransactionController {
         }
     }
 
+    // Массовый импорт: JSON-массив или NDJSON в формате тела POST /api/transactions.
+    // Тело читается потоком, поэтому объем импорта не ограничен памятью сервера
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importTransactions(
+            @CurrentUser User user,
+            InputStream body) {
+
+        try {
+            logger.info("Пользователь '{}' импортирует транзакции", user.getUsername());
+
+            ImportReport report = transactionImportService.importTransactions(user, body);
+            logger.info("Импорт для пользователя '{}': сохранено {}, отклонено {}",
+                    user.getUsername(), report.imported(), report.rejected());
+
+            return new ResponseEntity<>(report, report.completed() ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
+
+        } catch (Exception e) {
+            logger.error("Ошибка при импорте транзакций: {}", e.getMessage(), e);
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Импорт банковской выписки в CSV: колонки сопоставляются по заголовкам, банки ищутся по БИК,
+    // категории — по колонке «Категория» или по назначению платежа
+    @PostMapping(value = "/import/csv", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<?> importStatement(
+            @CurrentUser User user,
+            @RequestParam(defaultValue = ";") char delimiter,
+            @RequestParam(defaultValue = "UTF-8") String charset,
+            InputStream body) {
+
+        Charset encoding;
+        try {
+            encoding = Charset.forName(charset);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            logger.warn("Пользователь '{}' указал неизвестную кодировку выписки: {}", user.getUsername(), charset);
+            return new ResponseEntity<>("Неизвестная кодировка: " + charset, HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            logger.info("Пользователь '{}' импортирует выписку ({}, разделитель '{}')",
+                    user.getUsername(), encoding, delimiter);
+
+            ImportReport report = statementImportService.importStatement(user, body, delimiter, encoding);
+            logger.info("Импорт выписки для пользователя '{}': сохранено {}, отклонено {}, {} строк/с",
+                    user.getUsername(), report.imported(), report.rejected(),
+                    String.format("%.0f", report.rowsPerSecond()));
+
+            return new ResponseEntity<>(report, report.completed() ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
+
+        } catch (Exception e) {
+            logger.error("Ошибка при импорте выписки: {}", e.getMessage(), e);
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateTransaction(
-            Authentication authentication,
+            @CurrentUser User user,
             @PathVariable Long id,
             @RequestBody Transaction transactionDetails) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' обновляет транзакцию с ID: {}", user.getUsername(), id);
 
             Transaction transaction = transactionRepository.findByIdAndUserId(id, user.getId());
@@ -215,19 +348,7 @@ public class TransactionController {
                 return new ResponseEntity<>("Невозможно редактировать транзакцию в текущем статусе", HttpStatus.BAD_REQUEST);
             }
 
-            transaction.setPersonType(transactionDetails.getPersonType());
-            transaction.setOperationDateTime(transactionDetails.getOperationDateTime());
-            transaction.setComment(transactionDetails.getComment());
-            transaction.setAmount(transactionDetails.getAmount());
-            transaction.setStatus(transactionDetails.getStatus());
-            transaction.setSenderBank(transactionDetails.getSenderBank());
-            transaction.setRecipientBank(transactionDetails.getRecipientBank());
-            transaction.setRecipientInn(transactionDetails.getRecipientInn());
-            transaction.setCategory(transactionDetails.getCategory());
-            transaction.setRecipientPhone(transactionDetails.getRecipientPhone());
-            transaction.setUpdated(LocalDateTime.now());
-
-            Transaction updatedTransaction = transactionRepository.save(transaction);
+            Transaction updatedTransaction = transactionService.update(transaction, transactionDetails);
             logger.info("Успешно обновлена транзакция с ID: {} для пользователя '{}'", id, user.getUsername());
 
             return new ResponseEntity<>(updatedTransaction, HttpStatus.OK);
@@ -240,11 +361,10 @@ public class TransactionController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteTransaction(
-            Authentication authentication,
+            @CurrentUser User user,
             @PathVariable Long id) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' удаляет транзакцию с ID: {}", user.getUsername(), id);
 
             Transaction transaction = transactionRepository.findByIdAndUserId(id, user.getId());
@@ -259,11 +379,9 @@ public class TransactionController {
                 return new ResponseEntity<>("Невозможно удалить транзакцию в текущем статусе", HttpStatus.BAD_REQUEST);
             }
 
-            Optional<TransactionStatus> deletedStatus = statusRepository.findByCode("DELETED");
+            Optional<TransactionStatus> deletedStatus = statusRegistry.find(TransactionStatusCode.DELETED);
             if (deletedStatus.isPresent()) {
-                transaction.setStatus(deletedStatus.get());
-                transaction.setUpdated(LocalDateTime.now());
-                transactionRepository.save(transaction);
+                transactionService.markDeleted(transaction, deletedStatus.get());
                 logger.info("Транзакция с ID: {} успешно помечена как удаленная", id);
                 return new ResponseEntity<>("Транзакция помечена как удаленная", HttpStatus.OK);
             } else {
@@ -279,24 +397,23 @@ public class TransactionController {
 
     @GetMapping("/stats/count-by-period")
     public ResponseEntity<?> getTransactionCountByPeriod(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestParam String period,
             @RequestParam(required = false) @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDateTime baseDate) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает статистику по количеству транзакций за период: {}",
                     user.getUsername(), period);
 
             if (baseDate == null) {
-                baseDate = LocalDateTime.now();
+                baseDate = LocalDate.now().atStartOfDay();
                 logger.debug("Базовая дата не указана, используется текущая дата: {}", baseDate);
             } else {
                 logger.debug("Используется указанная базовая дата: {}", baseDate);
             }
 
             LocalDateTime startDate;
-            LocalDateTime endDate = LocalDateTime.now();
+            LocalDateTime endDate = endOfToday();
 
             switch (period.toLowerCase()) {
                 case "week":
@@ -320,7 +437,7 @@ public class TransactionController {
                     return new ResponseEntity<>("Неверный период", HttpStatus.BAD_REQUEST);
             }
 
-            Long count = transactionRepository.countTransactionsByPeriod(user.getId(), startDate, endDate);
+            Long count = transactionStatsService.countTransactionsByPeriod(user.getId(), startDate, endDate);
             logger.info("Для пользователя '{}' найдено {} транзакций за период {}",
                     user.getUsername(), count, period);
 
@@ -338,28 +455,27 @@ public class TransactionController {
 
     @GetMapping("/stats/amount-by-type")
     public ResponseEntity<?> getAmountByTransactionType(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestParam String typeCode,
             @RequestParam(required = false) @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDateTime endDate) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает статистику по суммам транзакций типа: {}",
                     user.getUsername(), typeCode);
 
             if (startDate == null) {
-                startDate = LocalDateTime.now().minusMonths(1);
+                startDate = LocalDate.now().minusMonths(1).atStartOfDay();
                 logger.debug("Начальная дата не указана, используется дата: {}", startDate);
             }
 
             if (endDate == null) {
-                endDate = LocalDateTime.now();
+                endDate = endOfToday();
                 logger.debug("Конечная дата не указана, используется текущая дата: {}", endDate);
             }
 
             logger.debug("Расчет сумм транзакций типа {} за период с {} по {}", typeCode, startDate, endDate);
-            BigDecimal totalAmount = transactionRepository.sumAmountByTransactionType(
+            BigDecimal totalAmount = transactionStatsService.sumAmountByTransactionType(
                     user.getId(), typeCode, startDate, endDate);
 
             logger.info("Для пользователя '{}' общая сумма транзакций типа {} составляет: {}",
@@ -380,29 +496,28 @@ public class TransactionController {
 
     @GetMapping("/stats/income-vs-expense")
     public ResponseEntity<?> getIncomeVsExpense(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestParam(required = false) @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDateTime endDate) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает сравнение доходов и расходов", user.getUsername());
 
             if (startDate == null) {
-                startDate = LocalDateTime.now().minusMonths(1);
+                startDate = LocalDate.now().minusMonths(1).atStartOfDay();
                 logger.debug("Начальная дата не указана, используется дата: {}", startDate);
             }
 
             if (endDate == null) {
-                endDate = LocalDateTime.now();
+                endDate = endOfToday();
                 logger.debug("Конечная дата не указана, используется текущая дата: {}", endDate);
             }
 
             logger.debug("Расчет доходов и расходов за период с {} по {}", startDate, endDate);
-            BigDecimal totalIncome = transactionRepository.sumAmountByTransactionType(
+            BigDecimal totalIncome = transactionStatsService.sumAmountByTransactionType(
                     user.getId(), TransactionType.INCOME, startDate, endDate);
 
-            BigDecimal totalExpense = transactionRepository.sumAmountByTransactionType(
+            BigDecimal totalExpense = transactionStatsService.sumAmountByTransactionType(
                     user.getId(), TransactionType.EXPENSE, startDate, endDate);
 
             BigDecimal balance = (totalIncome != null ? totalIncome : BigDecimal.ZERO)
@@ -428,12 +543,11 @@ public class TransactionController {
     }
 
     @GetMapping("/stats/count-by-status")
-    public ResponseEntity<?> getTransactionCountByStatus(Authentication authentication) {
+    public ResponseEntity<?> getTransactionCountByStatus(@CurrentUser User user) {
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает количество транзакций по статусам", user.getUsername());
 
-            List<Object[]> statusCounts = transactionRepository.countTransactionsByStatus(user.getId());
+            List<Object[]> statusCounts = transactionStatsService.countByStatus(user.getId());
             logger.debug("Получены данные о количестве транзакций в разных статусах: {} записей", statusCounts.size());
 
             Map<String, Object> response = new HashMap<>();
@@ -452,13 +566,12 @@ public class TransactionController {
     }
 
     @GetMapping("/stats/count-by-bank")
-    public ResponseEntity<?> getTransactionCountByBank(Authentication authentication) {
+    public ResponseEntity<?> getTransactionCountByBank(@CurrentUser User user) {
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает количество транзакций по банкам", user.getUsername());
 
-            List<Object[]> senderBankCounts = transactionRepository.countTransactionsBySenderBank(user.getId());
-            List<Object[]> recipientBankCounts = transactionRepository.countTransactionsByRecipientBank(user.getId());
+            List<Object[]> senderBankCounts = transactionStatsService.countBySenderBank(user.getId());
+            List<Object[]> recipientBankCounts = transactionStatsService.countByRecipientBank(user.getId());
 
             logger.debug("Получены данные о количестве транзакций по банкам-отправителям: {} записей",
                     senderBankCounts.size());
@@ -493,15 +606,14 @@ public class TransactionController {
 
     @GetMapping("/stats/amount-by-category")
     public ResponseEntity<?> getAmountByCategory(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestParam String typeCode) {
 
         try {
-            User user = userRepository.findByUsername(authentication.getName());
             logger.info("Пользователь '{}' запрашивает суммы транзакций по категориям для типа: {}",
                     user.getUsername(), typeCode);
 
-            List<Object[]> categorySums = transactionRepository.sumAmountByCategory(user.getId(), typeCode);
+            List<Object[]> categorySums = transactionStatsService.sumAmountByCategory(user.getId(), typeCode);
             logger.debug("Получены данные о суммах транзакций по {} категориям для типа {}",
                     categorySums.size(), typeCode);
 
@@ -520,4 +632,10 @@ public class TransactionController {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    // Периоды статистики по умолчанию выровнены по границам дней: ключ кэша статистики
+    // (TransactionStatsService) не меняется в течение дня, а полные дни читаются из дневных агрегатов
+    private static LocalDateTime endOfToday() {
+        return LocalDate.now().atTime(LocalTime.MAX);
+    }
+}
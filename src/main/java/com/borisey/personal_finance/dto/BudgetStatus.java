@@ -0,0 +1,12 @@
+package com.borisey.personal_finance.dto;
+
+import java.math.BigDecimal;
+
+// Бюджет категории и расход за месяц; remaining отрицателен, если бюджет превышен
+public record BudgetStatus(Long categoryId, String title, BigDecimal budget, BigDecimal spent,
+                           BigDecimal remaining, boolean exceeded) {
+
+    public BudgetStatus(Long categoryId, String title, BigDecimal budget, BigDecimal spent) {
+        this(categoryId, title, budget, spent, budget.subtract(spent), spent.compareTo(budget) > 0);
+    }
+}
@@ -0,0 +1,25 @@
+package com.borisey.personal_finance.dto;
+
+import com.borisey.personal_finance.models.User;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Пользователь в кэше CacheNames.USERS: только поля, нужные для подстановки текущего пользователя.
+// Хэш пароля в кэш не попадает, в том числе в общий Redis
+public record CachedUser(Long id, String username, String role, LocalDateTime createdAt) implements Serializable {
+
+    public static CachedUser of(User user) {
+        return new CachedUser(user.getId(), user.getUsername(), user.getRole(), user.getCreatedAt());
+    }
+
+    // Отсоединенная сущность без пароля; годится для чтения и как ссылка на пользователя в связях
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRole(role);
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+}
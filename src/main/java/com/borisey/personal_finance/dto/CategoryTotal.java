@@ -0,0 +1,7 @@
+package com.borisey.personal_finance.dto;
+
+import java.math.BigDecimal;
+
+// Сумма транзакций категории за период; для категорий без транзакций — ноль
+public record CategoryTotal(Long categoryId, String title, BigDecimal totalAmount) {
+}
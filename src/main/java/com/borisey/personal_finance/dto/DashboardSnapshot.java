@@ -0,0 +1,55 @@
+package com.borisey.personal_finance.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Все показатели сводного отчета: итоги одним проходом по транзакциям пользователя
+// и количество по статусам и банкам; собираются DashboardDataLoader
+public record DashboardSnapshot(
+        BigDecimal totalIncome,
+        BigDecimal totalExpense,
+        long transactionsWeek,
+        long transactionsMonth,
+        long transactionsQuarter,
+        long transactionsYear,
+        Map<String, Long> statusCounts,
+        Map<String, Long> senderBankCounts,
+        Map<String, Long> recipientBankCounts) {
+
+    // totals — строка TransactionRepository.aggregateDashboard:
+    // [доходы, расходы, неделя, месяц, квартал, год]; у пользователя без транзакций суммы равны null
+    public static DashboardSnapshot of(Object[] totals, List<Object[]> statusRows,
+                                       List<Object[]> senderBankRows, List<Object[]> recipientBankRows) {
+        return new DashboardSnapshot(
+                toBigDecimal(totals[0]), toBigDecimal(totals[1]),
+                toLong(totals[2]), toLong(totals[3]), toLong(totals[4]), toLong(totals[5]),
+                countsByKey(statusRows), countsByKey(senderBankRows), countsByKey(recipientBankRows));
+    }
+
+    // Строки вида [ключ, количество] из группирующих запросов, упорядоченные по ключу
+    public static Map<String, Long> countsByKey(List<Object[]> rows) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts.merge((String) row[0], ((Number) row[1]).longValue(), Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        return new BigDecimal(value.toString());
+    }
+}
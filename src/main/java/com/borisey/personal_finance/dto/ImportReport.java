@@ -0,0 +1,19 @@
+package com.borisey.personal_finance.dto;
+
+import java.util.List;
+
+// Итог импорта транзакций. completed = false, если разбор входных данных прервался;
+// строки из уже зафиксированных пакетов при этом остаются сохраненными.
+// rowsPerSecond — все прочитанные строки (сохраненные и отклоненные) за время импорта
+public record ImportReport(
+        long imported,
+        long rejected,
+        boolean completed,
+        long durationMillis,
+        double rowsPerSecond,
+        List<RowError> errors) {
+
+    // Номер строки считается с единицы в порядке следования записей во входных данных
+    public record RowError(long row, String message) {
+    }
+}
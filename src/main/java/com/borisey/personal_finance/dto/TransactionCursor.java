@@ -0,0 +1,38 @@
+package com.borisey.personal_finance.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Позиция последней выданной транзакции при постраничном выводе курсором.
+// Клиенту отдается как непрозрачная строка, внутреннее устройство может меняться
+public record TransactionCursor(LocalDateTime operationDateTime, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static TransactionCursor of(TransactionView transaction) {
+        return new TransactionCursor(transaction.operationDateTime(), transaction.id());
+    }
+
+    public String encode() {
+        String raw = operationDateTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Некорректный курсор");
+            }
+            return new TransactionCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException тоже является IllegalArgumentException
+            throw new IllegalArgumentException("Некорректный курсор", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.borisey.personal_finance.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Плоское представление транзакции для списка: справочники заменены идентификаторами и названиями,
+// поэтому страница читается одним SQL-запросом без подгрузки связанных сущностей
+public record TransactionView(
+        Long id,
+        @JsonFormat(pattern = "dd.MM.yyyy [HH:mm:ss]", shape = JsonFormat.Shape.STRING)
+        LocalDateTime operationDateTime,
+        BigDecimal amount,
+        String comment,
+        Long personTypeId,
+        Long transactionTypeId,
+        String transactionTypeCode,
+        String transactionTypeTitle,
+        Long statusId,
+        String statusCode,
+        String statusTitle,
+        Long senderBankId,
+        String senderBankTitle,
+        String sourceAccountNumber,
+        Long recipientBankId,
+        String recipientBankTitle,
+        String recipientAccountNumber,
+        String recipientInn,
+        String recipientPhone,
+        Long categoryId,
+        String categoryTitle,
+        @JsonFormat(pattern = "dd.MM.yyyy HH:mm:ss")
+        LocalDateTime created,
+        @JsonFormat(pattern = "dd.MM.yyyy HH:mm:ss")
+        LocalDateTime updated) {
+}
@@ -1,11 +1,14 @@
 package com.borisey.personal_finance.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "banks")
-public class Bank {
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class Bank implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,14 +1,21 @@
 package com.borisey.personal_finance.models;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+// Категории выбираются по пользователю и типу транзакции; для существующих баз индекс
+// создается скриптом db/migration/V2__category_user_type_index.sql
 @Entity
-@Table(name = "categories")
-public class Category {
+@Table(name = "categories", indexes = {
+        @Index(name = "idx_categories_user_type", columnList = "user_id, transaction_type_id")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class Category implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -0,0 +1,54 @@
+package com.borisey.personal_finance.models;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+// Расход по категории за месяц без удаленных транзакций. Поддерживается инкрементально
+// при записи транзакций, из него отвечает эндпоинт состояния бюджетов
+@Entity
+@Table(name = "category_spend")
+public class CategorySpend {
+
+    @EmbeddedId
+    private CategorySpendKey id;
+
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    @Column(name = "amount_sum", nullable = false, precision = 19, scale = 5)
+    private BigDecimal amountSum;
+
+    public CategorySpend() {
+    }
+
+    public CategorySpend(CategorySpendKey id, long txCount, BigDecimal amountSum) {
+        this.id = id;
+        this.txCount = txCount;
+        this.amountSum = amountSum;
+    }
+
+    public CategorySpendKey getId() {
+        return id;
+    }
+
+    public void setId(CategorySpendKey id) {
+        this.id = id;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+
+    public void setTxCount(long txCount) {
+        this.txCount = txCount;
+    }
+
+    public BigDecimal getAmountSum() {
+        return amountSum;
+    }
+
+    public void setAmountSum(BigDecimal amountSum) {
+        this.amountSum = amountSum;
+    }
+}
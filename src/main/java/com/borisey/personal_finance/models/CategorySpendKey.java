@@ -0,0 +1,73 @@
+package com.borisey.personal_finance.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Objects;
+
+// Ключ расхода по категории: пользователь, категория и месяц (первый день месяца)
+@Embeddable
+public class CategorySpendKey implements Serializable {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    public CategorySpendKey() {
+    }
+
+    public CategorySpendKey(Long userId, Long categoryId, LocalDate periodStart) {
+        this.userId = userId;
+        this.categoryId = categoryId;
+        this.periodStart = periodStart;
+    }
+
+    // Ключ для транзакции с категорией; транзакции без категории в бюджетах не участвуют
+    public static CategorySpendKey of(Transaction transaction) {
+        if (transaction.getCategory() == null || transaction.getUser() == null) {
+            return null;
+        }
+        return new CategorySpendKey(
+                transaction.getUser().getId(),
+                transaction.getCategory().getId(),
+                periodOf(transaction.getOperationDateTime().toLocalDate()));
+    }
+
+    public static LocalDate periodOf(LocalDate day) {
+        return YearMonth.from(day).atDay(1);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CategorySpendKey that)) return false;
+        return Objects.equals(userId, that.userId)
+                && Objects.equals(categoryId, that.categoryId)
+                && Objects.equals(periodStart, that.periodStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, categoryId, periodStart);
+    }
+}
@@ -1,13 +1,16 @@
 package com.borisey.personal_finance.models;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "person_types")
-public class PersonType {
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class PersonType implements Serializable {
 
     public static final String INDIVIDUAL = "INDIVIDUAL";
     public static final String LEGAL = "LEGAL";
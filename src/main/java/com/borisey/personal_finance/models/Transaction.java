@@ -1,6 +1,8 @@
 package com.borisey.personal_finance.models;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
@@ -9,19 +11,54 @@ import jakarta.validation.constraints.Digits;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// Составные индексы начинаются с user_id: все выборки ограничены транзакциями одного пользователя.
+// Те же индексы для уже существующих баз — в db/migration/V1__transaction_filter_indexes.sql.
+// Все связи ленивые; что подгружать одним запросом, задают графы сущности для конкретных сценариев
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_user_date", columnList = "user_id, operation_date_time, id"),
+        @Index(name = "idx_transactions_user_status_date", columnList = "user_id, status_id, operation_date_time"),
+        @Index(name = "idx_transactions_user_type_date",
+                columnList = "user_id, transaction_type_id, operation_date_time"),
+        @Index(name = "idx_transactions_user_category_date",
+                columnList = "user_id, category_id, operation_date_time"),
+        @Index(name = "idx_transactions_user_inn", columnList = "user_id, recipient_inn"),
+        @Index(name = "idx_transactions_user_amount", columnList = "user_id, amount")
+})
+@NamedEntityGraph(name = Transaction.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("personType"),
+        @NamedAttributeNode("transactionType"),
+        @NamedAttributeNode("status"),
+        @NamedAttributeNode("senderBank"),
+        @NamedAttributeNode("recipientBank"),
+        @NamedAttributeNode(value = "category", subgraph = "category")
+}, subgraphs = @NamedSubgraph(name = "category", attributeNodes = @NamedAttributeNode("transactionType")))
+@NamedEntityGraph(name = Transaction.EXPORT_GRAPH, attributeNodes = {
+        @NamedAttributeNode("transactionType"),
+        @NamedAttributeNode("status"),
+        @NamedAttributeNode("senderBank"),
+        @NamedAttributeNode("recipientBank"),
+        @NamedAttributeNode("category")
+})
 public class Transaction {
 
+    // Карточка транзакции: все справочники, которые выводятся в JSON
+    public static final String DETAIL_GRAPH = "Transaction.detail";
+    // Выгрузка в Excel: справочники, которые попадают в колонки отчета
+    public static final String EXPORT_GRAPH = "Transaction.export";
+
+    // Идентификаторы выдаются блоками по 50 (оптимизатор pooled), поэтому вставки можно группировать в JDBC-пакеты.
+    // На MySQL последовательность эмулируется таблицей transaction_seq — той же, что использовалась при AUTO
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "person_type_id", nullable = false)
     private PersonType personType;
 
@@ -29,7 +66,7 @@ public class Transaction {
     @Column(nullable = false)
     private LocalDateTime operationDateTime;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "transaction_type_id", nullable = false)
     private TransactionType transactionType;
 
@@ -41,18 +78,18 @@ public class Transaction {
     @Column(nullable = false, precision = 15, scale = 5)
     private BigDecimal amount;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "status_id", nullable = false)
     private TransactionStatus status;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_bank_id")
     private Bank senderBank;
 
     @Column(name = "source_account_number")
     private String sourceAccountNumber;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "recipient_bank_id")
     private Bank recipientBank;
 
@@ -62,7 +99,9 @@ public class Transaction {
     @Column(name = "recipient_account_number")
     private String recipientAccountNumber;
 
-    @ManyToOne
+    // Владелец категории в JSON транзакции не нужен
+    @JsonIgnoreProperties({"user", "hibernateLazyInitializer", "handler"})
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
@@ -89,6 +128,7 @@ public class Transaction {
         this.id = id;
     }
 
+    @JsonIgnore
     public User getUser() {
         return user;
     }
@@ -219,13 +259,12 @@ public class Transaction {
 
     // Методы для статусов транзакций
     public boolean isEditable() {
-        return status.getCode().equals("NEW");
+        TransactionStatusCode statusCode = status.getStatusCode();
+        return statusCode != null && statusCode.isEditable();
     }
 
     public boolean isDeletable() {
-        String statusCode = status.getCode();
-        return !statusCode.equals("CONFIRMED") && !statusCode.equals("PROCESSING") &&
-                !statusCode.equals("CANCELLED") && !statusCode.equals("COMPLETED") &&
-                !statusCode.equals("RETURNED");
+        TransactionStatusCode statusCode = status.getStatusCode();
+        return statusCode == null || statusCode.isDeletable();
     }
 }
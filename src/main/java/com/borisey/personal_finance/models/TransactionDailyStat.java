@@ -0,0 +1,45 @@
+package com.borisey.personal_finance.models;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+// Дневной агрегат транзакций пользователя в разрезе типа, категории, статуса и банков.
+// Поддерживается инкрементально при записи транзакций, читается эндпоинтами статистики
+@Entity
+@Table(name = "transaction_daily_stats")
+public class TransactionDailyStat {
+
+    @EmbeddedId
+    private TransactionDailyStatKey id;
+
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    @Column(name = "amount_sum", nullable = false, precision = 19, scale = 5)
+    private BigDecimal amountSum;
+
+    public TransactionDailyStatKey getId() {
+        return id;
+    }
+
+    public void setId(TransactionDailyStatKey id) {
+        this.id = id;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+
+    public void setTxCount(long txCount) {
+        this.txCount = txCount;
+    }
+
+    public BigDecimal getAmountSum() {
+        return amountSum;
+    }
+
+    public void setAmountSum(BigDecimal amountSum) {
+        this.amountSum = amountSum;
+    }
+}
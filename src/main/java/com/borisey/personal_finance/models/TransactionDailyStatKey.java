@@ -0,0 +1,112 @@
+package com.borisey.personal_finance.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Ключ дневного агрегата. Отсутствующие категория и банки хранятся как 0,
+// чтобы ключ оставался первичным и работал INSERT ... ON DUPLICATE KEY UPDATE
+@Embeddable
+public class TransactionDailyStatKey implements Serializable {
+
+    public static final long NONE = 0L;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "stat_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "transaction_type_id", nullable = false)
+    private Long transactionTypeId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "status_id", nullable = false)
+    private Long statusId;
+
+    @Column(name = "sender_bank_id", nullable = false)
+    private Long senderBankId;
+
+    @Column(name = "recipient_bank_id", nullable = false)
+    private Long recipientBankId;
+
+    public TransactionDailyStatKey() {
+    }
+
+    public TransactionDailyStatKey(Long userId, LocalDate day, Long transactionTypeId, Long categoryId,
+                                   Long statusId, Long senderBankId, Long recipientBankId) {
+        this.userId = userId;
+        this.day = day;
+        this.transactionTypeId = transactionTypeId;
+        this.categoryId = categoryId;
+        this.statusId = statusId;
+        this.senderBankId = senderBankId;
+        this.recipientBankId = recipientBankId;
+    }
+
+    public static TransactionDailyStatKey of(Transaction transaction) {
+        return new TransactionDailyStatKey(
+                transaction.getUser().getId(),
+                transaction.getOperationDateTime().toLocalDate(),
+                idOf(transaction.getTransactionType() != null ? transaction.getTransactionType().getId() : null),
+                idOf(transaction.getCategory() != null ? transaction.getCategory().getId() : null),
+                idOf(transaction.getStatus() != null ? transaction.getStatus().getId() : null),
+                idOf(transaction.getSenderBank() != null ? transaction.getSenderBank().getId() : null),
+                idOf(transaction.getRecipientBank() != null ? transaction.getRecipientBank().getId() : null));
+    }
+
+    private static Long idOf(Long id) {
+        return id != null ? id : NONE;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public Long getTransactionTypeId() {
+        return transactionTypeId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public Long getStatusId() {
+        return statusId;
+    }
+
+    public Long getSenderBankId() {
+        return senderBankId;
+    }
+
+    public Long getRecipientBankId() {
+        return recipientBankId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TransactionDailyStatKey that)) return false;
+        return Objects.equals(userId, that.userId)
+                && Objects.equals(day, that.day)
+                && Objects.equals(transactionTypeId, that.transactionTypeId)
+                && Objects.equals(categoryId, that.categoryId)
+                && Objects.equals(statusId, that.statusId)
+                && Objects.equals(senderBankId, that.senderBankId)
+                && Objects.equals(recipientBankId, that.recipientBankId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, day, transactionTypeId, categoryId, statusId, senderBankId, recipientBankId);
+    }
+}
@@ -1,11 +1,15 @@
 package com.borisey.personal_finance.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import java.io.Serializable;
 import java.util.List;
 
 @Entity
 @Table(name = "transaction_statuses")
-public class TransactionStatus {
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class TransactionStatus implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +24,9 @@ public class TransactionStatus {
     @OneToMany(mappedBy = "status")
     private List<Transaction> transactions;
 
+    // Разобранный код статуса, вычисляется один раз при первом обращении
+    private transient TransactionStatusCode statusCode;
+
     public TransactionStatus() {}
 
     public TransactionStatus(String code, String title) {
@@ -41,6 +48,15 @@ public class TransactionStatus {
 
     public void setCode(String code) {
         this.code = code;
+        this.statusCode = null;
+    }
+
+    @JsonIgnore
+    public TransactionStatusCode getStatusCode() {
+        if (statusCode == null) {
+            statusCode = TransactionStatusCode.fromCode(code);
+        }
+        return statusCode;
     }
 
     public String getTitle() {
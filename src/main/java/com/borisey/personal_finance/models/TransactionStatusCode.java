@@ -0,0 +1,42 @@
+package com.borisey.personal_finance.models;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Коды статусов транзакций, засеваемых DatabaseInitializer
+public enum TransactionStatusCode {
+    NEW,
+    CONFIRMED,
+    PROCESSING,
+    CANCELLED,
+    COMPLETED,
+    DELETED,
+    RETURNED;
+
+    // Редактировать можно только новую транзакцию
+    private static final Set<TransactionStatusCode> EDITABLE = EnumSet.of(NEW);
+
+    // Транзакции, ушедшие в обработку или завершенные, удалять нельзя
+    private static final Set<TransactionStatusCode> NOT_DELETABLE =
+            EnumSet.of(CONFIRMED, PROCESSING, CANCELLED, COMPLETED, RETURNED);
+
+    public boolean isEditable() {
+        return EDITABLE.contains(this);
+    }
+
+    public boolean isDeletable() {
+        return !NOT_DELETABLE.contains(this);
+    }
+
+    // null для кодов, которых нет в перечислении
+    public static TransactionStatusCode fromCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        try {
+            return valueOf(code);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.borisey.personal_finance.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import java.io.Serializable;
 import java.util.List;
 
 @Entity
 @Table(name = "transaction_types")
-public class TransactionType {
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class TransactionType implements Serializable {
 
     public static final String INCOME = "INCOME";
     public static final String EXPENSE = "EXPENSE";
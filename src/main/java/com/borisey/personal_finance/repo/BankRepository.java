@@ -1,6 +1,8 @@
 package com.borisey.personal_finance.repo;
 
+import com.borisey.personal_finance.config.CacheNames;
 import com.borisey.personal_finance.models.Bank;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -8,9 +10,12 @@ import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
+// Списки банков кэшируются; кэш сбрасывает ReferenceDataCache.refresh() после изменения банков
 public interface BankRepository extends JpaRepository<Bank, Long> {
+    @Cacheable(cacheNames = CacheNames.BANKS, key = "'sorted|' + #p0")
     List<Bank> findAll(Sort sort);
 
+    @Cacheable(cacheNames = CacheNames.BANKS, key = "'search|' + #p0")
     @Query("SELECT b FROM Bank b WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<Bank> searchByTitle(@Param("searchTerm") String searchTerm);
 
@@ -1,33 +1,55 @@
 package com.borisey.personal_finance.repo;
 
+import com.borisey.personal_finance.config.CacheNames;
+import com.borisey.personal_finance.dto.CategoryTotal;
 import com.borisey.personal_finance.models.Category;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+// Списки категорий кэшируются с версией данных пользователя в ключе (userDataKeyGenerator),
+// поэтому запись категорий или транзакций пользователя делает их недостижимыми
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    @Cacheable(cacheNames = CacheNames.CATEGORIES, keyGenerator = "userDataKeyGenerator")
     List<Category> findByUserId(Long userId, Sort sort);
 
+    @Cacheable(cacheNames = CacheNames.CATEGORIES, keyGenerator = "userDataKeyGenerator")
     List<Category> findByUserIdAndTransactionTypeId(Long userId, Long transactionTypeId, Sort sort);
 
     Category findByIdAndUserId(Long id, Long userId);
 
-    @Query("SELECT c, SUM(t.amount) as totalAmount FROM Category c " +
-                  "LEFT JOIN c.transactions t " +
-                  "WHERE c.user.id = :userId AND c.transactionType.id = :typeId " +
-                  "AND (t IS NULL OR (t.operationDateTime BETWEEN :startDate AND :endDate)) " +
-                  "GROUP BY c.id")
-    List<Object[]> findCategoriesWithTotalAmount(@Param("userId") Long userId,
-                                                 @Param("typeId") Long typeId,
-                                                 @Param("startDate") LocalDateTime startDate,
-                                                 @Param("endDate") LocalDateTime endDate,
-                                                 Sort sort);
+    // Суммы считаются заранее в подзапросе по транзакциям пользователя (индекс с user_id в начале)
+    // и присоединяются к категориям по id, поэтому категории без транзакций за период тоже попадают
+    // в результат. Удаленные транзакции не учитываются
+    @Query("SELECT new com.borisey.personal_finance.dto.CategoryTotal(c.id, c.title, COALESCE(s.total, 0)) " +
+            "FROM Category c " +
+            "LEFT JOIN (SELECT t.category.id AS categoryId, SUM(t.amount) AS total FROM Transaction t " +
+            "WHERE t.user.id = :userId AND t.operationDateTime BETWEEN :startDate AND :endDate " +
+            "AND t.status.id <> :deletedStatusId AND t.category.id IS NOT NULL " +
+            "GROUP BY t.category.id) s ON s.categoryId = c.id " +
+            "WHERE c.user.id = :userId AND c.transactionType.id = :typeId")
+    List<CategoryTotal> findCategoryTotals(@Param("userId") Long userId,
+                                           @Param("typeId") Long typeId,
+                                           @Param("startDate") LocalDateTime startDate,
+                                           @Param("endDate") LocalDateTime endDate,
+                                           @Param("deletedStatusId") Long deletedStatusId,
+                                           Sort sort);
 
+    // Сортировка для findCategoryTotals. totalAmount — сумма из подзапроса: у нее нет псевдонима,
+    // и Sort.by("totalAmount") сортировал бы по столбцу categories.total_amount, который не обновляется
+    static Sort categoryTotalsSort(String sortBy) {
+        return "totalAmount".equals(sortBy)
+                ? JpaSort.unsafe(Sort.Direction.ASC, "COALESCE(s.total, 0)")
+                : Sort.by(Sort.Direction.ASC, sortBy);
+    }
+
+    @Cacheable(cacheNames = CacheNames.CATEGORIES, keyGenerator = "userDataKeyGenerator")
     @Query("SELECT c FROM Category c WHERE c.user.id = :userId AND LOWER(c.title) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<Category> searchByTitle(@Param("userId") Long userId, @Param("searchTerm") String searchTerm);
 }
\ No newline at end of file
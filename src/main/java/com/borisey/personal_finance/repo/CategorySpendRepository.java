@@ -0,0 +1,55 @@
+package com.borisey.personal_finance.repo;
+
+import com.borisey.personal_finance.dto.BudgetStatus;
+import com.borisey.personal_finance.models.CategorySpend;
+import com.borisey.personal_finance.models.CategorySpendKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface CategorySpendRepository extends JpaRepository<CategorySpend, CategorySpendKey> {
+
+    // Атомарно прибавляет приращение к расходу (создает строку, если ее еще нет).
+    // Как и в TransactionDailyStatRepository.applyDelta, приращение в UPDATE передается параметром, а не VALUES(col)
+    @Modifying
+    @Query(value = "INSERT INTO category_spend (user_id, category_id, period_start, tx_count, amount_sum) " +
+            "VALUES (:userId, :categoryId, :periodStart, :countDelta, :amountDelta) " +
+            "ON DUPLICATE KEY UPDATE tx_count = tx_count + :countDelta, " +
+            "amount_sum = amount_sum + :amountDelta",
+            nativeQuery = true)
+    void applyDelta(@Param("userId") Long userId,
+                    @Param("categoryId") Long categoryId,
+                    @Param("periodStart") LocalDate periodStart,
+                    @Param("countDelta") long countDelta,
+                    @Param("amountDelta") BigDecimal amountDelta);
+
+    // Заполнение расходов по таблице транзакций одним запросом (таблица расходов должна быть пуста).
+    // Первый день месяца собирается из года и месяца: так выражение одинаково работает в MySQL и H2
+    @Modifying
+    @Query(value = "INSERT INTO category_spend (user_id, category_id, period_start, tx_count, amount_sum) " +
+            "SELECT t.user_id, t.category_id, " +
+            "CAST(CONCAT(YEAR(t.operation_date_time), '-', MONTH(t.operation_date_time), '-01') AS DATE), " +
+            "COUNT(*), SUM(t.amount) " +
+            "FROM transactions t " +
+            "WHERE t.user_id IS NOT NULL AND t.category_id IS NOT NULL AND t.status_id <> :deletedStatusId " +
+            "GROUP BY t.user_id, t.category_id, " +
+            "CAST(CONCAT(YEAR(t.operation_date_time), '-', MONTH(t.operation_date_time), '-01') AS DATE)",
+            nativeQuery = true)
+    int rebuildFromTransactions(@Param("deletedStatusId") Long deletedStatusId);
+
+    // Состояние бюджетов: одна строка расхода на категорию, транзакции не пересчитываются
+    @Query("SELECT new com.borisey.personal_finance.dto.BudgetStatus(c.id, c.title, c.budget, " +
+            "COALESCE(s.amountSum, 0)) " +
+            "FROM Category c " +
+            "LEFT JOIN CategorySpend s ON s.id.userId = :userId AND s.id.categoryId = c.id " +
+            "AND s.id.periodStart = :periodStart " +
+            "WHERE c.user.id = :userId AND c.budget IS NOT NULL " +
+            "ORDER BY c.title")
+    List<BudgetStatus> findBudgetStatus(@Param("userId") Long userId,
+                                        @Param("periodStart") LocalDate periodStart);
+}
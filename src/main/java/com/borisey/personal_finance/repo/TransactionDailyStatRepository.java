@@ -0,0 +1,92 @@
+package com.borisey.personal_finance.repo;
+
+import com.borisey.personal_finance.models.TransactionDailyStat;
+import com.borisey.personal_finance.models.TransactionDailyStatKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TransactionDailyStatRepository extends JpaRepository<TransactionDailyStat, TransactionDailyStatKey> {
+
+    // Атомарно прибавляет приращение к агрегату (создает строку, если ее еще нет).
+    // Приращение в UPDATE передается параметром: VALUES(col) устарел в MySQL 8.0.20, а псевдоним строки
+    // (INSERT ... AS new) не поддерживает H2, на котором идут тесты
+    @Modifying
+    @Query(value = "INSERT INTO transaction_daily_stats (user_id, stat_day, transaction_type_id, category_id, " +
+            "status_id, sender_bank_id, recipient_bank_id, tx_count, amount_sum) " +
+            "VALUES (:userId, :day, :typeId, :categoryId, :statusId, :senderBankId, :recipientBankId, " +
+            ":countDelta, :amountDelta) " +
+            "ON DUPLICATE KEY UPDATE tx_count = tx_count + :countDelta, " +
+            "amount_sum = amount_sum + :amountDelta",
+            nativeQuery = true)
+    void applyDelta(@Param("userId") Long userId,
+                    @Param("day") LocalDate day,
+                    @Param("typeId") Long typeId,
+                    @Param("categoryId") Long categoryId,
+                    @Param("statusId") Long statusId,
+                    @Param("senderBankId") Long senderBankId,
+                    @Param("recipientBankId") Long recipientBankId,
+                    @Param("countDelta") long countDelta,
+                    @Param("amountDelta") BigDecimal amountDelta);
+
+    // Заполнение агрегатов по таблице транзакций (таблица агрегатов должна быть пуста)
+    @Modifying
+    @Query(value = "INSERT INTO transaction_daily_stats (user_id, stat_day, transaction_type_id, category_id, " +
+            "status_id, sender_bank_id, recipient_bank_id, tx_count, amount_sum) " +
+            "SELECT t.user_id, CAST(t.operation_date_time AS DATE), t.transaction_type_id, " +
+            "COALESCE(t.category_id, 0), t.status_id, COALESCE(t.sender_bank_id, 0), " +
+            "COALESCE(t.recipient_bank_id, 0), COUNT(*), SUM(t.amount) " +
+            "FROM transactions t WHERE t.user_id IS NOT NULL " +
+            "GROUP BY t.user_id, CAST(t.operation_date_time AS DATE), t.transaction_type_id, " +
+            "COALESCE(t.category_id, 0), t.status_id, COALESCE(t.sender_bank_id, 0), " +
+            "COALESCE(t.recipient_bank_id, 0)",
+            nativeQuery = true)
+    int rebuildFromTransactions();
+
+    // Количество транзакций по статусам
+    @Query("SELECT s.code, SUM(d.txCount) FROM TransactionDailyStat d " +
+            "JOIN TransactionStatus s ON s.id = d.id.statusId " +
+            "WHERE d.id.userId = :userId AND d.txCount > 0 GROUP BY s.code")
+    List<Object[]> countByStatus(@Param("userId") Long userId);
+
+    // Статистика по банкам
+    @Query("SELECT b.title, SUM(d.txCount) FROM TransactionDailyStat d " +
+            "JOIN Bank b ON b.id = d.id.senderBankId " +
+            "WHERE d.id.userId = :userId AND d.txCount > 0 GROUP BY b.title")
+    List<Object[]> countBySenderBank(@Param("userId") Long userId);
+
+    @Query("SELECT b.title, SUM(d.txCount) FROM TransactionDailyStat d " +
+            "JOIN Bank b ON b.id = d.id.recipientBankId " +
+            "WHERE d.id.userId = :userId AND d.txCount > 0 GROUP BY b.title")
+    List<Object[]> countByRecipientBank(@Param("userId") Long userId);
+
+    // Статистика по категориям
+    @Query("SELECT c.title, SUM(d.amountSum) FROM TransactionDailyStat d " +
+            "JOIN Category c ON c.id = d.id.categoryId " +
+            "JOIN TransactionType tt ON tt.id = d.id.transactionTypeId " +
+            "WHERE d.id.userId = :userId AND tt.code = :typeCode AND d.txCount > 0 GROUP BY c.title")
+    List<Object[]> sumAmountByCategory(@Param("userId") Long userId,
+                                       @Param("typeCode") String typeCode);
+
+    // Сумма по типу транзакции за полные дни периода
+    @Query("SELECT SUM(d.amountSum) FROM TransactionDailyStat d " +
+            "JOIN TransactionType tt ON tt.id = d.id.transactionTypeId " +
+            "WHERE d.id.userId = :userId AND tt.code = :typeCode " +
+            "AND d.id.day BETWEEN :startDay AND :endDay")
+    BigDecimal sumAmountByTransactionType(@Param("userId") Long userId,
+                                          @Param("typeCode") String typeCode,
+                                          @Param("startDay") LocalDate startDay,
+                                          @Param("endDay") LocalDate endDay);
+
+    // Количество транзакций за полные дни периода
+    @Query("SELECT SUM(d.txCount) FROM TransactionDailyStat d " +
+            "WHERE d.id.userId = :userId AND d.id.day BETWEEN :startDay AND :endDay")
+    Long countTransactions(@Param("userId") Long userId,
+                           @Param("startDay") LocalDate startDay,
+                           @Param("endDay") LocalDate endDay);
+}
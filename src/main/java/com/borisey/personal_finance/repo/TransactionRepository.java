@@ -3,6 +3,7 @@ package com.borisey.personal_finance.repo;
 import com.borisey.personal_finance.models.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -12,7 +13,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction>,
+        TransactionRepositoryCustom {
 
     // Находит транзакции по пользователю
     List<Transaction> findByUserId(Long userId);
@@ -20,7 +22,8 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
     // Поиск с пагинацией
     Page<Transaction> findByUserId(Long userId, Pageable pageable);
 
-    // Поиск по пользователю и ID транзакции
+    // Поиск по пользователю и ID транзакции (вместе со справочниками, которые выводятся в карточке)
+    @EntityGraph(Transaction.DETAIL_GRAPH)
     Transaction findByIdAndUserId(Long id, Long userId);
 
     // Поиск по диапазону дат
@@ -90,10 +93,11 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
 
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.user.id = :userId " +
             "AND t.operationDateTime BETWEEN :startDate AND :endDate " +
-            "AND t.status.code <> 'DELETED'")
+            "AND t.status.id <> :deletedStatusId")
     Long countNonDeletedTransactionsByPeriod(@Param("userId") Long userId,
                                              @Param("startDate") LocalDateTime startDate,
-                                             @Param("endDate") LocalDateTime endDate);
+                                             @Param("endDate") LocalDateTime endDate,
+                                             @Param("deletedStatusId") Long deletedStatusId);
     @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.user.id = :userId " +
             "AND t.transactionType.code IN :typeCodes " +
             "AND t.operationDateTime BETWEEN :startDate AND :endDate")
@@ -102,5 +106,45 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
                                            @Param("startDate") LocalDateTime startDate,
                                            @Param("endDate") LocalDateTime endDate);
 
+    // Сумма по типу за полуинтервал [from, to) — используется для неполных дней периода
+    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.user.id = :userId " +
+            "AND t.transactionType.code = :typeCode " +
+            "AND t.operationDateTime >= :from AND t.operationDateTime < :to")
+    BigDecimal sumAmountByTransactionTypeBefore(@Param("userId") Long userId,
+                                                @Param("typeCode") String typeCode,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
 
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.user.id = :userId " +
+            "AND t.operationDateTime >= :from AND t.operationDateTime < :to")
+    Long countTransactionsBefore(@Param("userId") Long userId,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to);
+
+    // Итоги сводного отчета одним проходом: суммы по типам и количество по периодам
+    // считаются условной агрегацией; результат — одна строка
+    // [доходы, расходы, неделя, месяц, квартал, год]
+    @Query("SELECT " +
+            "SUM(CASE WHEN tt.code = 'INCOME' " +
+            "AND t.operationDateTime BETWEEN :startDate AND :endDate THEN t.amount ELSE 0 END), " +
+            "SUM(CASE WHEN tt.code IN ('EXPENSE', 'TRANSFER') " +
+            "AND t.operationDateTime BETWEEN :startDate AND :endDate THEN t.amount ELSE 0 END), " +
+            "SUM(CASE WHEN t.status.id <> :deletedStatusId " +
+            "AND t.operationDateTime BETWEEN :weekStart AND :endDate THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN t.status.id <> :deletedStatusId " +
+            "AND t.operationDateTime BETWEEN :monthStart AND :endDate THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN t.status.id <> :deletedStatusId " +
+            "AND t.operationDateTime BETWEEN :quarterStart AND :endDate THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN t.status.id <> :deletedStatusId " +
+            "AND t.operationDateTime BETWEEN :yearStart AND :endDate THEN 1 ELSE 0 END) " +
+            "FROM Transaction t JOIN t.transactionType tt " +
+            "WHERE t.user.id = :userId")
+    List<Object[]> aggregateDashboard(@Param("userId") Long userId,
+                                      @Param("startDate") LocalDateTime startDate,
+                                      @Param("endDate") LocalDateTime endDate,
+                                      @Param("weekStart") LocalDateTime weekStart,
+                                      @Param("monthStart") LocalDateTime monthStart,
+                                      @Param("quarterStart") LocalDateTime quarterStart,
+                                      @Param("yearStart") LocalDateTime yearStart,
+                                      @Param("deletedStatusId") Long deletedStatusId);
 }
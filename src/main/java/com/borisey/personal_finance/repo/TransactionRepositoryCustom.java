@@ -0,0 +1,27 @@
+package com.borisey.personal_finance.repo;
+
+import com.borisey.personal_finance.dto.TransactionView;
+import com.borisey.personal_finance.models.Transaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TransactionRepositoryCustom {
+
+    // Потоковое чтение транзакций по спецификации (только внутри транзакции, поток нужно закрыть)
+    Stream<Transaction> streamAll(Specification<Transaction> spec, Sort sort);
+
+    // Потоковое чтение плоского представления: сущности не создаются, контекст персистентности не растет
+    // (только внутри транзакции, поток нужно закрыть)
+    Stream<TransactionView> streamViews(Specification<Transaction> spec, Sort sort);
+
+    // Окно списка транзакций в плоском представлении, одним запросом и без подсчета общего количества строк
+    List<TransactionView> findViewWindow(Specification<Transaction> spec, Sort sort, int offset, int limit);
+
+    // Страница без COUNT(*): наличие следующей страницы определяется по одной лишней строке
+    Slice<TransactionView> findViewSlice(Specification<Transaction> spec, Pageable pageable);
+}
@@ -0,0 +1,128 @@
+package com.borisey.personal_finance.repo;
+
+import com.borisey.personal_finance.dto.TransactionView;
+import com.borisey.personal_finance.models.Bank;
+import com.borisey.personal_finance.models.Category;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatus;
+import com.borisey.personal_finance.models.TransactionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+
+    // Количество строк, которые драйвер забирает из курсора за один раз
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Transaction> streamAll(Specification<Transaction> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> query = criteriaBuilder.createQuery(Transaction.class);
+        Root<Transaction> root = query.from(Transaction.class);
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+
+        // Справочники, которые выводятся в отчет, забираем тем же запросом.
+        // Тип и статус обязательны (optional = false), поэтому соединяются внутренним соединением
+        return entityManager.createQuery(query)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, entityManager.getEntityGraph(Transaction.EXPORT_GRAPH))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<TransactionView> streamViews(Specification<Transaction> spec, Sort sort) {
+        // Курсор только вперед: драйвер забирает строки порциями по STREAM_FETCH_SIZE
+        return entityManager.createQuery(viewQuery(spec, sort))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public List<TransactionView> findViewWindow(Specification<Transaction> spec, Sort sort, int offset, int limit) {
+        return entityManager.createQuery(viewQuery(spec, sort))
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Slice<TransactionView> findViewSlice(Specification<Transaction> spec, Pageable pageable) {
+        int size = pageable.getPageSize();
+        List<TransactionView> rows = findViewWindow(
+                spec, pageable.getSort(), (int) pageable.getOffset(), size + 1);
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, pageable, hasNext);
+    }
+
+    private CriteriaQuery<TransactionView> viewQuery(Specification<Transaction> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionView> query = criteriaBuilder.createQuery(TransactionView.class);
+        Root<Transaction> root = query.from(Transaction.class);
+
+        Join<Transaction, TransactionType> transactionType = root.join("transactionType", JoinType.INNER);
+        Join<Transaction, TransactionStatus> status = root.join("status", JoinType.INNER);
+        Join<Transaction, Bank> senderBank = root.join("senderBank", JoinType.LEFT);
+        Join<Transaction, Bank> recipientBank = root.join("recipientBank", JoinType.LEFT);
+        Join<Transaction, Category> category = root.join("category", JoinType.LEFT);
+
+        // Порядок полей совпадает с конструктором TransactionView
+        query.select(criteriaBuilder.construct(TransactionView.class,
+                root.get("id"),
+                root.get("operationDateTime"),
+                root.get("amount"),
+                root.get("comment"),
+                root.get("personType").get("id"),
+                transactionType.get("id"),
+                transactionType.get("code"),
+                transactionType.get("title"),
+                status.get("id"),
+                status.get("code"),
+                status.get("title"),
+                senderBank.get("id"),
+                senderBank.get("title"),
+                root.get("sourceAccountNumber"),
+                recipientBank.get("id"),
+                recipientBank.get("title"),
+                root.get("recipientAccountNumber"),
+                root.get("recipientInn"),
+                root.get("recipientPhone"),
+                category.get("id"),
+                category.get("title"),
+                root.get("created"),
+                root.get("updated")));
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        return query;
+    }
+}
@@ -0,0 +1,58 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.dto.BudgetStatus;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.repo.CategorySpendRepository;
+import com.borisey.personal_finance.repo.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.List;
+
+// Состояние бюджетов категорий по месячным расходам из category_spend.
+// Расходы обновляет TransactionService при каждой записи транзакции
+@Service
+@Transactional(readOnly = true)
+public class BudgetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetService.class);
+    private final CategorySpendRepository categorySpendRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionStatusRegistry statusRegistry;
+
+    @Autowired
+    public BudgetService(
+            CategorySpendRepository categorySpendRepository,
+            TransactionRepository transactionRepository,
+            TransactionStatusRegistry statusRegistry) {
+        this.categorySpendRepository = categorySpendRepository;
+        this.transactionRepository = transactionRepository;
+        this.statusRegistry = statusRegistry;
+    }
+
+    public List<BudgetStatus> budgetStatus(Long userId, YearMonth period) {
+        return categorySpendRepository.findBudgetStatus(userId, period.atDay(1));
+    }
+
+    // Заполняет расходы, если таблица пуста, а транзакции уже есть (первый запуск после обновления)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (categorySpendRepository.count() > 0 || transactionRepository.count() == 0) {
+            return;
+        }
+        int rows = categorySpendRepository.rebuildFromTransactions(statusRegistry.idOf(TransactionStatusCode.DELETED));
+        logger.info("Расходы по категориям пересчитаны: {} строк", rows);
+    }
+
+    // Полный пересчет расходов, как TransactionStatsService.rebuild для дневных агрегатов
+    @Transactional
+    public void rebuild() {
+        categorySpendRepository.deleteAllInBatch();
+        int rows = categorySpendRepository.rebuildFromTransactions(statusRegistry.idOf(TransactionStatusCode.DELETED));
+        logger.info("Расходы по категориям пересчитаны заново: {} строк", rows);
+    }
+}
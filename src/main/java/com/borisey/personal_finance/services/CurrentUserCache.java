@@ -0,0 +1,68 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.config.CacheNames;
+import com.borisey.personal_finance.dto.CachedUser;
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.repo.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+// Пользователи по ID в кэше CacheNames.USERS (размер и время жизни — cache.users.*).
+// В кэше хранится CachedUser без пароля; возвращаемые сущности собираются из него, отсоединены
+// от контекста персистентности и используются только для чтения
+@Service
+public class CurrentUserCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrentUserCache.class);
+
+    private final UserRepository userRepository;
+    private final Cache users;
+
+    public CurrentUserCache(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.users = Objects.requireNonNull(cacheManager.getCache(CacheNames.USERS), "Нет кэша " + CacheNames.USERS);
+    }
+
+    // ID берется из принципала сессии; если принципал не User, ищем по имени
+    public User fromAuthentication(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new AuthenticationCredentialsNotFoundException("Пользователь не авторизован");
+        }
+        if (authentication.getPrincipal() instanceof User principal && principal.getId() != null) {
+            return get(principal.getId());
+        }
+
+        User user = userRepository.findByUsername(authentication.getName());
+        if (user == null) {
+            throw new UsernameNotFoundException("Пользователь не найден: " + authentication.getName());
+        }
+        return user;
+    }
+
+    // Загрузка не через Cache.get(key, loader): исключение загрузчика иначе пришло бы обернутым
+    public User get(Long userId) {
+        CachedUser cached = users.get(userId, CachedUser.class);
+        if (cached != null) {
+            return cached.toUser();
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь с ID " + userId + " не найден"));
+        CachedUser loaded = CachedUser.of(user);
+        users.put(userId, loaded);
+        return loaded.toUser();
+    }
+
+    public void invalidate(Long userId) {
+        users.evict(userId);
+        logger.debug("Пользователь с ID {} удален из кэша", userId);
+    }
+}
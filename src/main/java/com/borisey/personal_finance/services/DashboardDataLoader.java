@@ -0,0 +1,112 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.config.SqlStatementTracker;
+import com.borisey.personal_finance.dto.DashboardSnapshot;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.repo.TransactionRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+// Данные сводного отчета: итоги по типам и периодам считаются одним проходом по транзакциям
+// (TransactionRepository.aggregateDashboard), а три группирующих запроса по статусам и банкам
+// выполняются одновременно с ним на виртуальных потоках, поэтому сбор данных занимает столько,
+// сколько самый медленный из четырех запросов.
+// Число одновременных запросов всех сводных отчетов ограничено половиной пула соединений Hikari,
+// вторая половина остается обычным запросам
+@Service
+public class DashboardDataLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardDataLoader.class);
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionStatusRegistry statusRegistry;
+    private final Semaphore connections;
+
+    @Autowired
+    public DashboardDataLoader(TransactionRepository transactionRepository,
+                               TransactionStatusRegistry statusRegistry,
+                               DataSource dataSource) {
+        this.transactionRepository = transactionRepository;
+        this.statusRegistry = statusRegistry;
+        int permits = Math.max(1, poolSize(dataSource) / 2);
+        this.connections = new Semaphore(permits, true);
+        logger.info("Сводный отчет: не более {} одновременных запросов к БД", permits);
+    }
+
+    public DashboardSnapshot load(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        Long deletedStatusId = statusRegistry.idOf(TransactionStatusCode.DELETED);
+        long started = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<Object[]>> totals = submit(executor, () -> transactionRepository.aggregateDashboard(
+                    userId, startDate, endDate, endDate.minusWeeks(1), endDate.minusMonths(1),
+                    endDate.minusMonths(3), endDate.minusYears(1), deletedStatusId));
+            Future<List<Object[]>> statuses = submit(executor,
+                    () -> transactionRepository.countTransactionsByStatus(userId));
+            Future<List<Object[]>> senderBanks = submit(executor,
+                    () -> transactionRepository.countTransactionsBySenderBank(userId));
+            Future<List<Object[]>> recipientBanks = submit(executor,
+                    () -> transactionRepository.countTransactionsByRecipientBank(userId));
+
+            DashboardSnapshot snapshot = DashboardSnapshot.of(get(totals).get(0),
+                    get(statuses), get(senderBanks), get(recipientBanks));
+
+            logger.debug("Данные сводного отчета пользователя {} собраны за {} мс",
+                    userId, (System.nanoTime() - started) / 1_000_000);
+            return snapshot;
+        }
+    }
+
+    // Каждый запрос занимает соединение только на время выполнения и под разрешением семафора
+    // SQL задачи учитывается в HTTP-запросе, запросившем отчет (SqlStatementTracker)
+    private <T> Future<T> submit(ExecutorService executor, Callable<T> query) {
+        return executor.submit(SqlStatementTracker.propagate(() -> {
+            connections.acquire();
+            try {
+                return query.call();
+            } finally {
+                connections.release();
+            }
+        }));
+    }
+
+    private static <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Формирование сводного отчета прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Ошибка при получении данных сводного отчета", e.getCause());
+        }
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            logger.warn("Не удалось определить размер пула соединений: {}", e.getMessage());
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
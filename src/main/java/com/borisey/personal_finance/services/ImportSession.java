@@ -0,0 +1,120 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.dto.ImportReport;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatus;
+import com.borisey.personal_finance.models.User;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Общая часть импортов: проверка аннотаций сущности, серверные поля, накопление пакета,
+// фиксация пакетов через TransactionService.createAll и учет ошибок и скорости
+class ImportSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportSession.class);
+
+    private final User user;
+    private final TransactionService transactionService;
+    private final Validator validator;
+    private final TransactionStatus newStatus;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    private final List<Transaction> batch;
+    private final List<ImportReport.RowError> errors = new ArrayList<>();
+    private final long startedAt = System.nanoTime();
+    private long imported;
+    private long rejected;
+
+    ImportSession(User user, TransactionService transactionService, Validator validator,
+                  TransactionStatus newStatus, int batchSize, int maxReportedErrors) {
+        this.user = user;
+        this.transactionService = transactionService;
+        this.validator = validator;
+        this.newStatus = newStatus;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    void reject(long row, String message) {
+        rejected++;
+        addError(row, message);
+    }
+
+    // Ошибка, после которой разбор не продолжается; строкой не считается
+    void fail(long row, String message) {
+        addError(row, message);
+    }
+
+    // Ставит запись в очередь на сохранение; false, если она не прошла проверку аннотаций
+    boolean accept(long row, Transaction transaction) {
+        Set<ConstraintViolation<Transaction>> violations = validator.validate(transaction);
+        if (!violations.isEmpty()) {
+            reject(row, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        transaction.setId(null);
+        transaction.setUser(user);
+        transaction.setStatus(newStatus);
+        transaction.setCreated(now);
+        transaction.setUpdated(now);
+        batch.add(transaction);
+
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+        return true;
+    }
+
+    // Сохраняет остаток; вызывается и при обрыве разбора, чтобы проверенные записи не терялись
+    void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int size = batch.size();
+        transactionService.createAll(user.getId(), batch);
+        batch.clear();
+        imported += size;
+        logger.debug("Сохранен пакет из {} транзакций пользователя '{}', всего {}, {} строк/с",
+                size, user.getUsername(), imported, String.format("%.0f", rowsPerSecond(elapsedMillis())));
+    }
+
+    ImportReport finish(boolean completed) {
+        long durationMillis = elapsedMillis();
+        ImportReport report = new ImportReport(imported, rejected, completed, durationMillis,
+                rowsPerSecond(durationMillis), errors);
+        logger.info("Импорт транзакций пользователя '{}' завершен за {} мс ({} строк/с): сохранено {}, "
+                        + "отклонено {}, разбор {}", user.getUsername(), durationMillis,
+                String.format("%.0f", report.rowsPerSecond()), imported, rejected,
+                completed ? "завершен" : "прерван");
+        return report;
+    }
+
+    private double rowsPerSecond(long durationMillis) {
+        long rows = imported + rejected + batch.size();
+        return durationMillis > 0 ? rows * 1000.0 / durationMillis : rows;
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+
+    private void addError(long row, String message) {
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new ImportReport.RowError(row, message));
+        }
+    }
+}
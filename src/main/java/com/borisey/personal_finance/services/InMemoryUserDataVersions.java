@@ -0,0 +1,24 @@
+package com.borisey.personal_finance.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Версии в памяти процесса. Счетчики начинаются с момента запуска, чтобы ETag отчетов,
+// выданные до перезапуска, не совпали с новыми ключами
+public class InMemoryUserDataVersions implements UserDataVersions {
+
+    private final long initialVersion = System.currentTimeMillis();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Override
+    public long current(Long userId) {
+        AtomicLong version = versions.get(userId);
+        return version != null ? version.get() : initialVersion;
+    }
+
+    @Override
+    public void bump(Long userId) {
+        versions.computeIfAbsent(userId, id -> new AtomicLong(initialVersion)).incrementAndGet();
+    }
+}
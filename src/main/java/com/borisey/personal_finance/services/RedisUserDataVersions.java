@@ -0,0 +1,41 @@
+package com.borisey.personal_finance.services;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+// Версии в Redis рядом с общим кэшем: запись на одном экземпляре приложения (INCR) сразу меняет
+// ключи на всех, а записи кэша остаются доступны после перезапуска.
+// Отсутствующий счетчик (первое обращение или вытеснение ключа Redis) начинается с текущего времени,
+// чтобы не совпасть с версиями, под которыми уже лежат записи
+public class RedisUserDataVersions implements UserDataVersions {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    public RedisUserDataVersions(StringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix + "data-version:";
+    }
+
+    @Override
+    public long current(Long userId) {
+        String key = keyPrefix + userId;
+        String version = redisTemplate.opsForValue().get(key);
+        if (version != null) {
+            return Long.parseLong(version);
+        }
+        String initial = String.valueOf(System.currentTimeMillis());
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, initial))) {
+            return Long.parseLong(initial);
+        }
+        // Счетчик успел создать другой поток или экземпляр
+        version = redisTemplate.opsForValue().get(key);
+        return Long.parseLong(version != null ? version : initial);
+    }
+
+    @Override
+    public void bump(Long userId) {
+        String key = keyPrefix + userId;
+        redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()));
+        redisTemplate.opsForValue().increment(key);
+    }
+}
@@ -0,0 +1,153 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.config.CacheNames;
+import com.borisey.personal_finance.models.Bank;
+import com.borisey.personal_finance.models.PersonType;
+import com.borisey.personal_finance.models.TransactionStatus;
+import com.borisey.personal_finance.models.TransactionType;
+import com.borisey.personal_finance.repo.BankRepository;
+import com.borisey.personal_finance.repo.PersonTypeRepository;
+import com.borisey.personal_finance.repo.TransactionStatusRepository;
+import com.borisey.personal_finance.repo.TransactionTypeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+// Неизменяемый снимок справочников (типы лиц, типы и статусы транзакций, банки) в кэше
+// CacheNames.REFERENCE_DATA. Снимок целиком заменяется при изменении банков и после начального
+// заполнения БД, а по истечении cache.reference-data.ttl собирается заново при первом обращении
+@Service
+public class ReferenceDataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    // Поля, по которым список банков сортируется в памяти
+    private static final Map<String, Comparator<Bank>> BANK_ORDER = Map.of(
+            "id", Comparator.comparing(Bank::getId),
+            "title", Comparator.comparing(Bank::getTitle, String.CASE_INSENSITIVE_ORDER),
+            "bik", Comparator.comparing(Bank::getBik),
+            "createdAt", Comparator.comparing(Bank::getCreatedAt));
+
+    public record Snapshot(
+            List<PersonType> personTypes,
+            List<TransactionType> transactionTypes,
+            List<TransactionStatus> transactionStatuses,
+            List<Bank> banks,
+            Map<String, Object> all,
+            String personTypesEtag,
+            String transactionTypesEtag,
+            String transactionStatusesEtag,
+            String banksEtag,
+            String allEtag) implements Serializable {
+    }
+
+    private static final String SNAPSHOT_KEY = "snapshot";
+
+    private final PersonTypeRepository personTypeRepository;
+    private final TransactionTypeRepository transactionTypeRepository;
+    private final TransactionStatusRepository transactionStatusRepository;
+    private final BankRepository bankRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache referenceData;
+    private final Cache bankLists;
+
+    @Autowired
+    public ReferenceDataCache(
+            PersonTypeRepository personTypeRepository,
+            TransactionTypeRepository transactionTypeRepository,
+            TransactionStatusRepository transactionStatusRepository,
+            BankRepository bankRepository,
+            ObjectMapper objectMapper,
+            CacheManager cacheManager) {
+        this.personTypeRepository = personTypeRepository;
+        this.transactionTypeRepository = transactionTypeRepository;
+        this.transactionStatusRepository = transactionStatusRepository;
+        this.bankRepository = bankRepository;
+        this.objectMapper = objectMapper;
+        this.referenceData = Objects.requireNonNull(cacheManager.getCache(CacheNames.REFERENCE_DATA),
+                "Нет кэша " + CacheNames.REFERENCE_DATA);
+        this.bankLists = Objects.requireNonNull(cacheManager.getCache(CacheNames.BANKS),
+                "Нет кэша " + CacheNames.BANKS);
+    }
+
+    public Snapshot get() {
+        Snapshot current = referenceData.get(SNAPSHOT_KEY, Snapshot.class);
+        return current != null ? current : refresh();
+    }
+
+    // Банки в порядке sortBy; пусто, если поле не поддерживается сортировкой в памяти
+    public Optional<List<Bank>> banksSortedBy(String sortBy) {
+        Comparator<Bank> order = BANK_ORDER.get(sortBy);
+        if (order == null) {
+            return Optional.empty();
+        }
+        return Optional.of(get().banks().stream()
+                .sorted(Comparator.nullsLast(order))
+                .toList());
+    }
+
+    public String banksEtag(String sortBy) {
+        String etag = get().banksEtag();
+        // У разных сортировок разное представление, поэтому и разные ETag
+        return etag.substring(0, etag.length() - 1) + "-" + sortBy + "\"";
+    }
+
+    // Начальная загрузка после того, как инициализаторы заполнили справочники
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    public synchronized Snapshot refresh() {
+        List<PersonType> personTypes = List.copyOf(personTypeRepository.findAll());
+        List<TransactionType> transactionTypes = List.copyOf(transactionTypeRepository.findAll());
+        List<TransactionStatus> transactionStatuses = List.copyOf(transactionStatusRepository.findAll());
+        List<Bank> banks = List.copyOf(bankRepository.findAll());
+
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("personTypes", personTypes);
+        all.put("transactionTypes", transactionTypes);
+        all.put("transactionStatuses", transactionStatuses);
+
+        Snapshot refreshed = new Snapshot(
+                personTypes, transactionTypes, transactionStatuses, banks, Collections.unmodifiableMap(all),
+                etagOf(personTypes), etagOf(transactionTypes), etagOf(transactionStatuses), etagOf(banks),
+                etagOf(all));
+        referenceData.put(SNAPSHOT_KEY, refreshed);
+        // Закэшированные списки банков из БД (BankRepository) тоже устарели
+        bankLists.clear();
+
+        logger.info("Обновлен кэш справочников: {} типов лиц, {} типов транзакций, {} статусов, {} банков",
+                personTypes.size(), transactionTypes.size(), transactionStatuses.size(), banks.size());
+        return refreshed;
+    }
+
+    // Сильный ETag — SHA-256 от JSON-представления
+    private String etagOf(Object value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(value));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Не удалось вычислить ETag справочника", e);
+        }
+    }
+}
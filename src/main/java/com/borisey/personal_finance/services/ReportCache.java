@@ -0,0 +1,192 @@
+package com.borisey.personal_finance.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Дисковый LRU-кэш готовых Excel-отчетов. Ключ — пользователь, тип отчета, нормализованные
+// параметры, версия данных пользователя (UserDataVersions) и ETag снимка справочников, поэтому
+// любая запись транзакций или категорий, как и изменение банков, делает старые файлы недостижимыми;
+// они вытесняются по объему или сроку хранения.
+// Вытесненный файл удаляется не сразу, а через reports.cache.delete-delay: его могут как раз
+// начать отдавать клиенту. Открытый файл дочитывается и после удаления
+@Service
+public class ReportCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCache.class);
+
+    // Готовый файл отчета; ETag однозначно определяется ключом, а значит и содержимым
+    public record CachedReport(Path file, long size, String etag, long expiresAt) {
+    }
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final Duration ttl;
+    private final long deleteDelayMillis;
+    private final UserDataVersions dataVersions;
+    private final ReferenceDataCache referenceDataCache;
+    // Порядок доступа: первым идет давно не использованный отчет
+    private final LinkedHashMap<String, CachedReport> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+    // Вытесненные файлы и время, после которого их можно удалить
+    private final Map<Path, Long> retiredFiles = new LinkedHashMap<>();
+    // Каждый сохраненный отчет пишется в новый файл, чтобы отложенное удаление не задело новую версию
+    private final AtomicLong fileSequence = new AtomicLong();
+
+    public ReportCache(
+            UserDataVersions dataVersions,
+            ReferenceDataCache referenceDataCache,
+            @Value("${reports.cache.directory:${java.io.tmpdir}/personal-finance-report-cache}") String directory,
+            @Value("${reports.cache.max-size:256MB}") DataSize maxSize,
+            @Value("${reports.cache.ttl:PT1H}") Duration ttl,
+            @Value("${reports.cache.delete-delay:PT1M}") Duration deleteDelay) throws IOException {
+        this.dataVersions = dataVersions;
+        this.referenceDataCache = referenceDataCache;
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.maxSizeBytes = maxSize.toBytes();
+        this.ttl = ttl;
+        this.deleteDelayMillis = deleteDelay.toMillis();
+        // Версии данных хранятся в памяти, поэтому файлы прошлого запуска могут быть устаревшими
+        deleteLeftovers();
+        logger.info("Кэш отчетов: каталог {}, не более {}, время жизни {}", this.directory, maxSize, ttl);
+    }
+
+    // Ключ фиксирует версию данных до формирования отчета: если данные изменятся во время
+    // формирования, версия увеличится и этот ключ больше не будет запрошен.
+    // В отчетах печатаются названия банков, типов и статусов, поэтому в ключ входят и ETag справочников:
+    // BankController после каждого изменения банков обновляет снимок (ReferenceDataCache.refresh)
+    public String key(Long userId, String reportType, String parameters) {
+        ReferenceDataCache.Snapshot references = referenceDataCache.get();
+        return userId + "|" + reportType + "|" + parameters + "|v" + dataVersions.current(userId)
+                + "|r" + references.allEtag() + references.banksEtag();
+    }
+
+    // ETag вычисляется по ключу, поэтому If-None-Match можно проверить без формирования отчета
+    public String etag(String key) {
+        return "\"" + sha256(key).substring(0, 32) + "\"";
+    }
+
+    public synchronized Optional<CachedReport> get(String key) {
+        CachedReport report = entries.get(key);
+        if (report == null) {
+            return Optional.empty();
+        }
+        if (report.expiresAt() <= System.currentTimeMillis() || !Files.exists(report.file())) {
+            remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(report);
+    }
+
+    // Файл сначала пишется во временный и переименовывается, чтобы читатели не видели неполный отчет
+    public CachedReport put(String key, byte[] content) throws IOException {
+        String hash = sha256(key);
+        Path file = directory.resolve(hash + "." + fileSequence.incrementAndGet() + ".xlsx");
+        Path partFile = directory.resolve(hash + "." + Thread.currentThread().threadId() + ".part");
+        Files.write(partFile, content);
+        Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        CachedReport report = new CachedReport(file, content.length, etag(key),
+                System.currentTimeMillis() + ttl.toMillis());
+        synchronized (this) {
+            CachedReport previous = entries.put(key, report);
+            if (previous != null) {
+                totalSize -= previous.size();
+            }
+            totalSize += report.size();
+            evictOverflow();
+        }
+        return report;
+    }
+
+    @Scheduled(fixedDelayString = "${reports.cache.cleanup-interval:PT5M}")
+    public synchronized void cleanupExpired() {
+        long now = System.currentTimeMillis();
+        List<String> expired = new ArrayList<>();
+        entries.forEach((key, report) -> {
+            if (report.expiresAt() <= now) {
+                expired.add(key);
+            }
+        });
+        expired.forEach(this::remove);
+        if (!expired.isEmpty()) {
+            logger.debug("Удалено {} просроченных отчетов из кэша", expired.size());
+        }
+        deleteRetired(now);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedReport>> eldest = entries.entrySet().iterator();
+        // Последний добавленный отчет не вытесняется, даже если он один больше лимита
+        while (totalSize > maxSizeBytes && entries.size() > 1 && eldest.hasNext()) {
+            CachedReport report = eldest.next().getValue();
+            eldest.remove();
+            totalSize -= report.size();
+            retire(report.file());
+        }
+    }
+
+    private void remove(String key) {
+        CachedReport report = entries.remove(key);
+        if (report != null) {
+            totalSize -= report.size();
+            retire(report.file());
+        }
+    }
+
+    private void retire(Path file) {
+        retiredFiles.put(file, System.currentTimeMillis() + deleteDelayMillis);
+    }
+
+    // Файл, который не удалось удалить (в Windows открытый файл удалить нельзя), остается до следующей очистки
+    private void deleteRetired(long now) {
+        retiredFiles.entrySet().removeIf(retired -> retired.getValue() <= now && deleteQuietly(retired.getKey()));
+    }
+
+    private void deleteLeftovers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(this::deleteQuietly);
+        }
+    }
+
+    private boolean deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить файл кэша отчетов {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.borisey.personal_finance.services;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+// Фоновое задание на формирование отчета; хранится в памяти, файл результата лежит на диске
+public class ReportJob {
+
+    public enum Type {
+        TRANSACTIONS, CATEGORIES, DASHBOARD
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final Long userId;
+    private final Type type;
+    private final String filename;
+    private final LocalDateTime created;
+
+    private volatile Status status;
+    private volatile Path file;
+    private volatile String error;
+    private volatile LocalDateTime started;
+    private volatile LocalDateTime finished;
+
+    public ReportJob(String id, Long userId, Type type, String filename) {
+        this.id = id;
+        this.userId = userId;
+        this.type = type;
+        this.filename = filename;
+        this.created = LocalDateTime.now();
+        this.status = Status.QUEUED;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void markRunning() {
+        this.status = Status.RUNNING;
+        this.started = LocalDateTime.now();
+    }
+
+    void markCompleted(Path file) {
+        this.file = file;
+        this.finished = LocalDateTime.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        this.finished = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getStarted() {
+        return started;
+    }
+
+    public LocalDateTime getFinished() {
+        return finished;
+    }
+}
@@ -0,0 +1,16 @@
+package com.borisey.personal_finance.services;
+
+// Задание не принято: превышен лимит пользователя или переполнена очередь
+public class ReportJobRejectedException extends RuntimeException {
+
+    private final boolean userLimitExceeded;
+
+    public ReportJobRejectedException(String message, boolean userLimitExceeded) {
+        super(message);
+        this.userLimitExceeded = userLimitExceeded;
+    }
+
+    public boolean isUserLimitExceeded() {
+        return userLimitExceeded;
+    }
+}
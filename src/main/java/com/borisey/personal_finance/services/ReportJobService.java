@@ -0,0 +1,162 @@
+package com.borisey.personal_finance.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    // Формирует отчет в переданный поток
+    @FunctionalInterface
+    public interface ReportRenderer {
+        void render(OutputStream out) throws IOException;
+    }
+
+    private final Path directory;
+    private final int perUserLimit;
+    private final Duration ttl;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    // Число незавершенных заданий пользователя; запись удаляется, когда заданий не остается
+    private final Map<Long, Integer> activeJobsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    public ReportJobService(
+            @Value("${reports.jobs.directory:${java.io.tmpdir}/personal-finance-reports}") String directory,
+            @Value("${reports.jobs.pool-size:2}") int poolSize,
+            @Value("${reports.jobs.queue-capacity:50}") int queueCapacity,
+            @Value("${reports.jobs.per-user-limit:2}") int perUserLimit,
+            @Value("${reports.jobs.ttl:PT1H}") Duration ttl) throws IOException {
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.perUserLimit = perUserLimit;
+        this.ttl = ttl;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // Задания хранятся только в памяти, поэтому файлы прошлого запуска уже недоступны для скачивания
+        deleteLeftovers();
+        logger.info("Очередь фоновых отчетов: потоков {}, очередь {}, лимит на пользователя {}, каталог {}",
+                poolSize, queueCapacity, perUserLimit, this.directory);
+    }
+
+    public ReportJob submit(Long userId, ReportJob.Type type, String filename, ReportRenderer renderer) {
+        if (activeJobsByUser.merge(userId, 1, Integer::sum) > perUserLimit) {
+            releaseSlot(userId);
+            throw new ReportJobRejectedException(
+                    "Превышено количество одновременных заданий на отчет: " + perUserLimit, true);
+        }
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), userId, type, filename);
+        jobs.put(job.getId(), job);
+
+        try {
+            executor.execute(() -> run(job, renderer));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            releaseSlot(userId);
+            throw new ReportJobRejectedException("Очередь формирования отчетов переполнена", false);
+        }
+
+        logger.info("Задание {} на отчет {} поставлено в очередь для пользователя с ID {}",
+                job.getId(), type, userId);
+        return job;
+    }
+
+    public Optional<ReportJob> findJob(String jobId, Long userId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null || !job.getUserId().equals(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    private void run(ReportJob job, ReportRenderer renderer) {
+        job.markRunning();
+        Path partFile = directory.resolve(job.getId() + ".part");
+        Path file = directory.resolve(job.getId() + ".xlsx");
+        try {
+            try (OutputStream out = Files.newOutputStream(partFile)) {
+                renderer.render(out);
+            }
+            Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING);
+            job.markCompleted(file);
+            logger.info("Задание {} на отчет {} выполнено", job.getId(), job.getType());
+        } catch (Exception e) {
+            logger.error("Ошибка при выполнении задания {} на отчет {}: {}",
+                    job.getId(), job.getType(), e.getMessage(), e);
+            deleteQuietly(partFile);
+            job.markFailed(e.getMessage());
+        } finally {
+            releaseSlot(job.getUserId());
+        }
+    }
+
+    private void releaseSlot(Long userId) {
+        activeJobsByUser.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    // Удаляет завершенные задания и их файлы по истечении срока хранения
+    @Scheduled(fixedDelayString = "${reports.jobs.cleanup-interval:PT5M}")
+    public void cleanupExpiredJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(ttl);
+        jobs.values().removeIf(job -> {
+            if (job.isFinished() && job.getFinished().isBefore(threshold)) {
+                if (job.getFile() != null) {
+                    deleteQuietly(job.getFile());
+                }
+                logger.debug("Удалено просроченное задание на отчет {}", job.getId());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void deleteLeftovers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(this::deleteQuietly);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить файл отчета {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
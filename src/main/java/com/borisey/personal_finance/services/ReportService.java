@@ -1,10 +1,18 @@
 package com.borisey.personal_finance.services;
 
+import com.borisey.personal_finance.dto.DashboardSnapshot;
 import com.borisey.personal_finance.models.Transaction;
 import com.borisey.personal_finance.models.User;
 import com.borisey.personal_finance.repo.TransactionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import jakarta.persistence.EntityManager;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,51 +20,79 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.apache.poi.xddf.usermodel.chart.*;
 import java.time.format.DateTimeFormatter;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 @Service
 public class ReportService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
     private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final DashboardDataLoader dashboardDataLoader;
+    private final MeterRegistry meterRegistry;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    // Сколько строк потокового листа держится в памяти, остальные сбрасываются во временный файл
+    private static final int STREAMING_ROW_WINDOW = 100;
 
     @Autowired
-    public ReportService(TransactionRepository transactionRepository) {
+    public ReportService(TransactionRepository transactionRepository, EntityManager entityManager,
+                         DashboardDataLoader dashboardDataLoader, MeterRegistry meterRegistry) {
         this.transactionRepository = transactionRepository;
+        this.entityManager = entityManager;
+        this.dashboardDataLoader = dashboardDataLoader;
+        this.meterRegistry = meterRegistry;
     }
 
+    @Transactional(readOnly = true)
     public byte[] generateTransactionsReport(User user, Specification<Transaction> spec,
                                              LocalDateTime startDate, LocalDateTime endDate) throws IOException {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            writeTransactionsReport(user, spec, startDate, endDate, out);
+            return out.toByteArray();
+        }
+    }
+
+    // Потоковое формирование отчета: строки читаются из курсора и сразу сбрасываются на диск,
+    // поэтому расход памяти не зависит от количества транзакций
+    @Transactional(readOnly = true)
+    public void writeTransactionsReport(User user, Specification<Transaction> spec,
+                                        LocalDateTime startDate, LocalDateTime endDate,
+                                        OutputStream out) throws IOException {
         logger.info("Формирование Excel отчета по транзакциям для пользователя '{}'", user.getUsername());
+        long started = System.nanoTime();
 
-        List<Transaction> transactions = transactionRepository.findAll(
-                spec, Sort.by(Sort.Direction.DESC, "operationDateTime"));
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
 
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+        try (workbook;
+             Stream<Transaction> transactions = transactionRepository.streamAll(
+                     spec, Sort.by(Sort.Direction.DESC, "operationDateTime"))) {
+
+            ReportStyles styles = new ReportStyles(workbook);
+            CellStyle dataStyle = styles.get(ReportStyles.Kind.DATA);
+            CellStyle negativeStyle = styles.get(ReportStyles.Kind.NEGATIVE);
+            CellStyle dateTimeStyle = styles.get(ReportStyles.Kind.DATE_TIME);
 
             Sheet sheet = workbook.createSheet("Транзакции");
 
             Row titleRow = sheet.createRow(0);
             Cell titleCell = titleRow.createCell(0);
             titleCell.setCellValue("Отчет по финансовым операциям");
-
-            CellStyle titleStyle = workbook.createCellStyle();
-            Font titleFont = workbook.createFont();
-            titleFont.setBold(true);
-            titleFont.setFontHeightInPoints((short) 14);
-            titleStyle.setFont(titleFont);
-            titleCell.setCellStyle(titleStyle);
+            titleCell.setCellStyle(styles.get(ReportStyles.Kind.TITLE));
 
             sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 7));
 
@@ -72,47 +108,27 @@ public class ReportService {
             String[] headers = {"Дата и время", "Тип", "Категория", "Сумма", "Статус",
                     "Банк отправителя", "Банк получателя", "Комментарий"};
 
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_CORNFLOWER_BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-
+            CellStyle headerStyle = styles.get(ReportStyles.Kind.HEADER);
             for (int i = 0; i < headers.length; i++) {
                 Cell cell = headerRow.createCell(i);
                 cell.setCellValue(headers[i]);
                 cell.setCellStyle(headerStyle);
                 sheet.setColumnWidth(i, 256 * 15);
             }
-
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
-
-            CellStyle negativeStyle = workbook.createCellStyle();
-            Font redFont = workbook.createFont();
-            redFont.setColor(IndexedColors.RED.getIndex());
-            negativeStyle.setFont(redFont);
-            negativeStyle.setBorderBottom(BorderStyle.THIN);
-            negativeStyle.setBorderTop(BorderStyle.THIN);
-            negativeStyle.setBorderLeft(BorderStyle.THIN);
-            negativeStyle.setBorderRight(BorderStyle.THIN);
+            // Дата с временем в формате dd.mm.yyyy hh:mm не помещается в 15 символов
+            sheet.setColumnWidth(0, 256 * 17);
 
             int rowNum = 4;
-            for (Transaction transaction : transactions) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
                 Row row = sheet.createRow(rowNum++);
 
+                // Дата хранится числом с форматом ячейки: без строки на каждую транзакцию,
+                // и в Excel по колонке работают сортировка и фильтры по дате
                 Cell dateCell = row.createCell(0);
-                dateCell.setCellValue(transaction.getOperationDateTime().format(DATE_FORMATTER));
-                dateCell.setCellStyle(dataStyle);
+                dateCell.setCellValue(transaction.getOperationDateTime());
+                dateCell.setCellStyle(dateTimeStyle);
 
                 Cell typeCell = row.createCell(1);
                 typeCell.setCellValue(transaction.getTransactionType().getTitle());
@@ -154,17 +170,15 @@ public class ReportService {
                 Cell commentCell = row.createCell(7);
                 commentCell.setCellValue(transaction.getComment());
                 commentCell.setCellStyle(dataStyle);
+
+                // Строка уже записана, сущность больше не нужна в контексте персистентности
+                entityManager.detach(transaction);
             }
 
             Row totalRow = sheet.createRow(rowNum + 1);
             Cell totalLabelCell = totalRow.createCell(0);
             totalLabelCell.setCellValue("ИТОГО:");
-
-            CellStyle totalStyle = workbook.createCellStyle();
-            Font totalFont = workbook.createFont();
-            totalFont.setBold(true);
-            totalStyle.setFont(totalFont);
-            totalLabelCell.setCellStyle(totalStyle);
+            totalLabelCell.setCellStyle(styles.get(ReportStyles.Kind.TOTAL));
 
             BigDecimal totalIncome = transactionRepository.sumAmountByTransactionType(
                     user.getId(), "INCOME", startDate, endDate);
@@ -192,21 +206,33 @@ public class ReportService {
             BigDecimal balance = totalIncome.subtract(totalExpense);
             balanceCell.setCellValue(balance.doubleValue());
 
-            workbook.write(out);
-            logger.info("Excel отчет успешно сформирован для пользователя '{}'", user.getUsername());
-            return out.toByteArray();
+            long rows = rowCount(workbook);
+            CountingOutputStream countingOut = new CountingOutputStream(out);
+            workbook.write(countingOut);
+            countingOut.flush();
+            recordReport("transactions", started, rows, countingOut.getByteCount());
+            logger.info("Excel отчет успешно сформирован для пользователя '{}' ({} строк)",
+                    user.getUsername(), rowNum - 4);
+        } finally {
+            workbook.dispose();
         }
     }
 
     public byte[] generateCategoryReportByType(User user, String typeCode) throws IOException {
         logger.info("Формирование Excel отчета по категориям типа {} для пользователя '{}'",
                 typeCode, user.getUsername());
+        long started = System.nanoTime();
 
         List<Object[]> categorySums = transactionRepository.sumAmountByCategory(user.getId(), typeCode);
 
         try (Workbook workbook = new XSSFWorkbook();
              ByteArrayOutputStream out = new ByteArrayOutputStream()) {
 
+            ReportStyles styles = new ReportStyles(workbook);
+            CellStyle titleStyle = styles.get(ReportStyles.Kind.TITLE);
+            CellStyle dataStyle = styles.get(ReportStyles.Kind.DATA);
+            CellStyle percentStyle = styles.get(ReportStyles.Kind.PERCENT);
+
             Sheet sheet = workbook.createSheet("Категории " +
                     (typeCode.equals("INCOME") ? "доходов" : "расходов"));
 
@@ -214,12 +240,6 @@ public class ReportService {
             Cell titleCell = titleRow.createCell(0);
             titleCell.setCellValue("Отчет по категориям " +
                     (typeCode.equals("INCOME") ? "доходов" : "расходов"));
-
-            CellStyle titleStyle = workbook.createCellStyle();
-            Font titleFont = workbook.createFont();
-            titleFont.setBold(true);
-            titleFont.setFontHeightInPoints((short) 14);
-            titleStyle.setFont(titleFont);
             titleCell.setCellStyle(titleStyle);
             sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 2));
 
@@ -236,18 +256,7 @@ public class ReportService {
             Row headerRow = sheet.createRow(3);
             String[] headers = {"Категория", "Сумма", "% от общей суммы"};
 
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_CORNFLOWER_BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-
+            CellStyle headerStyle = styles.get(ReportStyles.Kind.HEADER);
             for (int i = 0; i < headers.length; i++) {
                 Cell cell = headerRow.createCell(i);
                 cell.setCellValue(headers[i]);
@@ -255,19 +264,6 @@ public class ReportService {
                 sheet.setColumnWidth(i, 256 * 20);
             }
 
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
-
-            CellStyle percentStyle = workbook.createCellStyle();
-            percentStyle.setDataFormat(workbook.createDataFormat().getFormat("0.00%"));
-            percentStyle.setBorderBottom(BorderStyle.THIN);
-            percentStyle.setBorderTop(BorderStyle.THIN);
-            percentStyle.setBorderLeft(BorderStyle.THIN);
-            percentStyle.setBorderRight(BorderStyle.THIN);
-
             if (categorySums.isEmpty()) {
                 Row noDataRow = sheet.createRow(4);
                 Cell noDataCell = noDataRow.createCell(0);
@@ -309,11 +305,7 @@ public class ReportService {
                 Row totalRow = sheet.createRow(rowNum + 1);
                 Cell totalLabelCell = totalRow.createCell(0);
                 totalLabelCell.setCellValue("ИТОГО:");
-
-                CellStyle totalStyle = workbook.createCellStyle();
-                Font totalFont = workbook.createFont();
-                totalFont.setBold(true);
-                totalStyle.setFont(totalFont);
+                CellStyle totalStyle = styles.get(ReportStyles.Kind.TOTAL);
                 totalLabelCell.setCellStyle(totalStyle);
 
                 Cell totalAmountCell = totalRow.createCell(1);
@@ -372,6 +364,7 @@ public class ReportService {
             }
 
             workbook.write(out);
+            recordReport("categories", started, rowCount(workbook), out.size());
             logger.info("Excel отчет по категориям типа {} успешно сформирован для пользователя '{}'",
                     typeCode, user.getUsername());
             return out.toByteArray();
@@ -382,67 +375,27 @@ public class ReportService {
     public byte[] generateDashboardReport(User user, LocalDateTime startDate, LocalDateTime endDate) throws IOException {
         logger.info("Формирование сводного Excel отчета для пользователя '{}' за период с {} по {}",
                 user.getUsername(), startDate.format(DATE_FORMATTER), endDate.format(DATE_FORMATTER));
+        long started = System.nanoTime();
 
         try (Workbook workbook = new XSSFWorkbook();
              ByteArrayOutputStream out = new ByteArrayOutputStream()) {
 
-            LocalDateTime yearStart = endDate.minusYears(1);
-            LocalDateTime quarterStart = endDate.minusMonths(3);
-            LocalDateTime monthStart = endDate.minusMonths(1);
-            LocalDateTime weekStart = endDate.minusWeeks(1);
-
-            BigDecimal totalIncome = transactionRepository.sumAmountByTransactionType(
-                    user.getId(), "INCOME", startDate, endDate);
-            totalIncome = totalIncome == null ? BigDecimal.ZERO : totalIncome;
-
-            List<String> expenseTypes = java.util.Arrays.asList("EXPENSE", "TRANSFER");
-            BigDecimal totalExpense = transactionRepository.sumAmountByTransactionTypes(
-                    user.getId(), expenseTypes, startDate, endDate);
-            totalExpense = totalExpense == null ? BigDecimal.ZERO : totalExpense;
-
-            Long transactionsWeek = transactionRepository.countNonDeletedTransactionsByPeriod(
-                    user.getId(), weekStart, endDate);
-            transactionsWeek = transactionsWeek == null ? 0L : transactionsWeek;
-
-            Long transactionsMonth = transactionRepository.countNonDeletedTransactionsByPeriod(
-                    user.getId(), monthStart, endDate);
-            transactionsMonth = transactionsMonth == null ? 0L : transactionsMonth;
+            // Сначала все данные (запросы идут параллельно), затем однопоточная сборка книги
+            DashboardSnapshot snapshot = dashboardDataLoader.load(user.getId(), startDate, endDate);
 
-            Long transactionsQuarter = transactionRepository.countNonDeletedTransactionsByPeriod(
-                    user.getId(), quarterStart, endDate);
-            transactionsQuarter = transactionsQuarter == null ? 0L : transactionsQuarter;
-
-            Long transactionsYear = transactionRepository.countNonDeletedTransactionsByPeriod(
-                    user.getId(), yearStart, endDate);
-            transactionsYear = transactionsYear == null ? 0L : transactionsYear;
+            BigDecimal totalIncome = snapshot.totalIncome();
+            BigDecimal totalExpense = snapshot.totalExpense();
+            long transactionsWeek = snapshot.transactionsWeek();
+            long transactionsMonth = snapshot.transactionsMonth();
+            long transactionsQuarter = snapshot.transactionsQuarter();
+            long transactionsYear = snapshot.transactionsYear();
 
             Sheet summarySheet = workbook.createSheet("Сводная информация");
 
-            CellStyle titleStyle = workbook.createCellStyle();
-            Font titleFont = workbook.createFont();
-            titleFont.setBold(true);
-            titleFont.setFontHeightInPoints((short) 14);
-            titleStyle.setFont(titleFont);
-
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
-
-            CellStyle negativeStyle = workbook.createCellStyle();
-            Font redFont = workbook.createFont();
-            redFont.setColor(IndexedColors.RED.getIndex());
-            negativeStyle.setFont(redFont);
-            negativeStyle.setBorderBottom(BorderStyle.THIN);
-            negativeStyle.setBorderTop(BorderStyle.THIN);
-            negativeStyle.setBorderLeft(BorderStyle.THIN);
-            negativeStyle.setBorderRight(BorderStyle.THIN);
+            ReportStyles styles = new ReportStyles(workbook);
+            CellStyle titleStyle = styles.get(ReportStyles.Kind.TITLE);
+            CellStyle headerStyle = styles.get(ReportStyles.Kind.SECTION);
+            CellStyle negativeStyle = styles.get(ReportStyles.Kind.NEGATIVE);
 
             Row titleRow = summarySheet.createRow(0);
             Cell titleCell = titleRow.createCell(0);
@@ -511,19 +464,19 @@ public class ReportService {
             statusHeaderCell.setCellStyle(headerStyle);
             summarySheet.addMergedRegion(new CellRangeAddress(14, 14, 0, 1));
 
-            List<Object[]> statusCounts = transactionRepository.countTransactionsByStatus(user.getId());
+            Map<String, Long> statusCounts = snapshot.statusCounts();
             int rowIdx = 15;
 
-            if (statusCounts == null || statusCounts.isEmpty()) {
+            if (statusCounts.isEmpty()) {
                 Row noDataRow = summarySheet.createRow(rowIdx);
                 Cell noDataCell = noDataRow.createCell(0);
                 noDataCell.setCellValue("Нет данных");
                 summarySheet.addMergedRegion(new CellRangeAddress(rowIdx, rowIdx, 0, 1));
             } else {
-                for (Object[] result : statusCounts) {
+                for (Map.Entry<String, Long> result : statusCounts.entrySet()) {
                     Row statusRow = summarySheet.createRow(rowIdx++);
-                    statusRow.createCell(0).setCellValue(result[0] != null ? (String) result[0] : "Неизвестный статус");
-                    statusRow.createCell(1).setCellValue(result[1] != null ? ((Long) result[1]).intValue() : 0);
+                    statusRow.createCell(0).setCellValue(result.getKey());
+                    statusRow.createCell(1).setCellValue(result.getValue());
                 }
             }
 
@@ -540,17 +493,16 @@ public class ReportService {
             senderHeaderCell.setCellStyle(headerStyle);
             summarySheet.addMergedRegion(new CellRangeAddress(rowIdx-1, rowIdx-1, 0, 1));
 
-            List<Object[]> senderBankStats = transactionRepository.countTransactionsBySenderBank(user.getId());
-            if (senderBankStats == null || senderBankStats.isEmpty()) {
+            Map<String, Long> senderBankStats = snapshot.senderBankCounts();
+            if (senderBankStats.isEmpty()) {
                 Row noDataRow = summarySheet.createRow(rowIdx++);
                 noDataRow.createCell(0).setCellValue("Нет данных");
                 summarySheet.addMergedRegion(new CellRangeAddress(rowIdx-1, rowIdx-1, 0, 1));
             } else {
-                for (Object[] result : senderBankStats) {
+                for (Map.Entry<String, Long> result : senderBankStats.entrySet()) {
                     Row bankRow = summarySheet.createRow(rowIdx++);
-                    bankRow.createCell(0).setCellValue(result[0] != null ? (String) result[0] : "Неизвестный банк");
-                    bankRow.createCell(0).setCellValue(result[0] != null ? (String) result[0] : "Неизвестный банк");
-                    bankRow.createCell(1).setCellValue(result[1] != null ? ((Long) result[1]).intValue() : 0);
+                    bankRow.createCell(0).setCellValue(result.getKey());
+                    bankRow.createCell(1).setCellValue(result.getValue());
                 }
             }
 
@@ -561,16 +513,16 @@ public class ReportService {
             recipientHeaderCell.setCellStyle(headerStyle);
             summarySheet.addMergedRegion(new CellRangeAddress(rowIdx-1, rowIdx-1, 0, 1));
 
-            List<Object[]> recipientBankStats = transactionRepository.countTransactionsByRecipientBank(user.getId());
-            if (recipientBankStats == null || recipientBankStats.isEmpty()) {
+            Map<String, Long> recipientBankStats = snapshot.recipientBankCounts();
+            if (recipientBankStats.isEmpty()) {
                 Row noDataRow = summarySheet.createRow(rowIdx++);
                 noDataRow.createCell(0).setCellValue("Нет данных");
                 summarySheet.addMergedRegion(new CellRangeAddress(rowIdx-1, rowIdx-1, 0, 1));
             } else {
-                for (Object[] result : recipientBankStats) {
+                for (Map.Entry<String, Long> result : recipientBankStats.entrySet()) {
                     Row bankRow = summarySheet.createRow(rowIdx++);
-                    bankRow.createCell(0).setCellValue(result[0] != null ? (String) result[0] : "Неизвестный банк");
-                    bankRow.createCell(1).setCellValue(result[1] != null ? ((Long) result[1]).intValue() : 0);
+                    bankRow.createCell(0).setCellValue(result.getKey());
+                    bankRow.createCell(1).setCellValue(result.getValue());
                 }
             }
 
@@ -630,7 +582,7 @@ public class ReportService {
             }
 
             String[] periodLabels = {"Неделя", "Месяц", "Квартал", "Год"};
-            Long[] periodValues = {transactionsWeek, transactionsMonth, transactionsQuarter, transactionsYear};
+            long[] periodValues = {transactionsWeek, transactionsMonth, transactionsQuarter, transactionsYear};
 
             Row periodHeaderRow = chartSheet.createRow(15);
             periodHeaderRow.createCell(0).setCellValue("Период");
@@ -682,8 +634,35 @@ public class ReportService {
             chartSheet.setColumnWidth(1, 256 * 15);
 
             workbook.write(out);
+            recordReport("dashboard", started, rowCount(workbook), out.size());
             logger.info("Сводный Excel отчет успешно сформирован для пользователя '{}'", user.getUsername());
             return out.toByteArray();
         }
     }
+
+    // Метрики сформированного отчета с тегом report: время от выборки данных до записи книги
+    // (reports.render), число строк на листах (reports.rows) и размер файла (reports.size)
+    private void recordReport(String report, long startedNanos, long rows, long bytes) {
+        Tags tags = Tags.of("report", report);
+        meterRegistry.timer("reports.render", tags).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("reports.rows")
+                .baseUnit("rows")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(rows);
+        DistributionSummary.builder("reports.size")
+                .baseUnit(BaseUnits.BYTES)
+                .tags(tags)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    // Потоковая книга после записи строк уже не хранит, поэтому считать нужно до workbook.write
+    private static long rowCount(Workbook workbook) {
+        long rows = 0;
+        for (Sheet sheet : workbook) {
+            rows += sheet.getLastRowNum() + 1;
+        }
+        return rows;
+    }
 }
@@ -0,0 +1,98 @@
+package com.borisey.personal_finance.services;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Каталог стилей одной книги: каждый стиль и шрифт создается не больше одного раза на книгу,
+// а не при каждом вызове. Стили нельзя переносить между книгами, поэтому каталог создается на книгу
+class ReportStyles {
+
+    enum Kind {
+        // Заголовок листа
+        TITLE,
+        // Шапка таблицы: жирный текст по центру на цветном фоне
+        HEADER,
+        // Заголовок раздела сводного отчета: только жирный текст
+        SECTION,
+        DATA,
+        // Расходы и отрицательный баланс
+        NEGATIVE,
+        TOTAL,
+        PERCENT,
+        // Дата и время операции — числовая ячейка Excel с форматом, а не строка
+        DATE_TIME
+    }
+
+    private static final String DATE_TIME_FORMAT = "dd.mm.yyyy hh:mm";
+
+    private final Workbook workbook;
+    private final Map<Kind, CellStyle> styles = new EnumMap<>(Kind.class);
+    private Font boldFont;
+
+    ReportStyles(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    CellStyle get(Kind kind) {
+        return styles.computeIfAbsent(kind, this::create);
+    }
+
+    private CellStyle create(Kind kind) {
+        CellStyle style = workbook.createCellStyle();
+        switch (kind) {
+            case TITLE -> {
+                Font titleFont = workbook.createFont();
+                titleFont.setBold(true);
+                titleFont.setFontHeightInPoints((short) 14);
+                style.setFont(titleFont);
+            }
+            case HEADER -> {
+                style.setFont(boldFont());
+                style.setAlignment(HorizontalAlignment.CENTER);
+                style.setFillForegroundColor(IndexedColors.LIGHT_CORNFLOWER_BLUE.getIndex());
+                style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                setThinBorders(style);
+            }
+            case SECTION, TOTAL -> style.setFont(boldFont());
+            case DATA -> setThinBorders(style);
+            case NEGATIVE -> {
+                Font redFont = workbook.createFont();
+                redFont.setColor(IndexedColors.RED.getIndex());
+                style.setFont(redFont);
+                setThinBorders(style);
+            }
+            case PERCENT -> {
+                style.setDataFormat(workbook.createDataFormat().getFormat("0.00%"));
+                setThinBorders(style);
+            }
+            case DATE_TIME -> {
+                style.setDataFormat(workbook.createDataFormat().getFormat(DATE_TIME_FORMAT));
+                setThinBorders(style);
+            }
+        }
+        return style;
+    }
+
+    private Font boldFont() {
+        if (boldFont == null) {
+            boldFont = workbook.createFont();
+            boldFont.setBold(true);
+        }
+        return boldFont;
+    }
+
+    private static void setThinBorders(CellStyle style) {
+        style.setBorderBottom(BorderStyle.THIN);
+        style.setBorderTop(BorderStyle.THIN);
+        style.setBorderLeft(BorderStyle.THIN);
+        style.setBorderRight(BorderStyle.THIN);
+    }
+}
@@ -0,0 +1,389 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.dto.ImportReport;
+import com.borisey.personal_finance.models.Bank;
+import com.borisey.personal_finance.models.Category;
+import com.borisey.personal_finance.models.PersonType;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.models.TransactionType;
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.repo.BankRepository;
+import com.borisey.personal_finance.repo.CategoryRepository;
+import jakarta.validation.Validator;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.csv.DuplicateHeaderMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+// Импорт банковской выписки в CSV. Строки проходят этапы: разбор CSV → сопоставление колонок с полями
+// транзакции → банки по БИК и категории по правилам → пакетное сохранение через ImportSession.
+// Файл читается потоком, в памяти держится только текущий пакет
+@Service
+public class StatementImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementImportService.class);
+
+    // Форматы дат в выгрузках банков: 15.11.2024, 15.11.2024 10:00, 15.11.2024 10:00:00, 2024-11-15T10:00:00
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            dateFormat("dd.MM.yyyy[ HH:mm[:ss]]"),
+            dateFormat("yyyy-MM-dd[['T'][ ]HH:mm[:ss]]"));
+
+    // Колонки выписки и варианты их заголовков (без учета регистра)
+    private enum Column {
+        DATE("дата операции", "дата проводки", "дата", "operationdatetime"),
+        AMOUNT("сумма операции", "сумма", "amount"),
+        TRANSACTION_TYPE("тип операции", "вид операции", "transactiontype", "transactiontypecode"),
+        PERSON_TYPE("тип лица", "persontype"),
+        COMMENT("назначение платежа", "описание операции", "описание", "комментарий", "comment"),
+        SENDER_BIK("бик банка отправителя", "бик отправителя", "senderbik"),
+        SOURCE_ACCOUNT("счет отправителя", "sourceaccountnumber"),
+        RECIPIENT_BIK("бик банка получателя", "бик получателя", "recipientbik"),
+        RECIPIENT_ACCOUNT("счет получателя", "recipientaccountnumber"),
+        RECIPIENT_INN("инн получателя", "инн", "recipientinn"),
+        RECIPIENT_PHONE("телефон получателя", "телефон", "recipientphone"),
+        CATEGORY("категория", "category", "categorytitle");
+
+        private final List<String> headers;
+
+        Column(String... headers) {
+            this.headers = List.of(headers);
+        }
+    }
+
+    private final Validator validator;
+    private final TransactionService transactionService;
+    private final TransactionStatusRegistry statusRegistry;
+    private final ReferenceDataCache referenceDataCache;
+    private final BankRepository bankRepository;
+    private final CategoryRepository categoryRepository;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public StatementImportService(
+            Validator validator,
+            TransactionService transactionService,
+            TransactionStatusRegistry statusRegistry,
+            ReferenceDataCache referenceDataCache,
+            BankRepository bankRepository,
+            CategoryRepository categoryRepository,
+            @Value("${transactions.import.batch-size:500}") int batchSize,
+            @Value("${transactions.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.validator = validator;
+        this.transactionService = transactionService;
+        this.statusRegistry = statusRegistry;
+        this.referenceDataCache = referenceDataCache;
+        this.bankRepository = bankRepository;
+        this.categoryRepository = categoryRepository;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportReport importStatement(User user, InputStream body, char delimiter, Charset charset)
+            throws IOException {
+        ReferenceDataCache.Snapshot references = referenceDataCache.get();
+        RowMapper mapper = new RowMapper(references,
+                categoryRepository.findByUserId(user.getId(), Sort.unsorted()));
+        ImportSession session = new ImportSession(user, transactionService, validator,
+                statusRegistry.get(TransactionStatusCode.NEW), batchSize, maxReportedErrors);
+        long row = 0;
+        boolean completed = true;
+
+        logger.info("Пользователь '{}' начал импорт выписки", user.getUsername());
+
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setDelimiter(delimiter)
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreHeaderCase(true)
+                .setAllowMissingColumnNames(true)
+                .setDuplicateHeaderMode(DuplicateHeaderMode.ALLOW_ALL)
+                .setIgnoreEmptyLines(true)
+                .setTrim(true)
+                .build();
+
+        try (CSVParser parser = CSVParser.parse(withoutBom(new InputStreamReader(body, charset)), format)) {
+            Map<Column, String> columns = mapColumns(parser.getHeaderNames());
+            if (!columns.containsKey(Column.DATE) || !columns.containsKey(Column.AMOUNT)) {
+                session.fail(0, "В заголовке выписки нет колонок с датой и суммой операции");
+                return session.finish(false);
+            }
+            mapper.columns = columns;
+
+            Iterator<CSVRecord> records = parser.iterator();
+            while (true) {
+                CSVRecord record;
+                try {
+                    if (!records.hasNext()) {
+                        break;
+                    }
+                    row++;
+                    record = records.next();
+                } catch (UncheckedIOException e) {
+                    // Незакрытая кавычка и т.п.: границы следующих строк уже не определить
+                    completed = false;
+                    session.fail(row + 1, "Некорректный CSV (строка файла " + parser.getCurrentLineNumber() + "): "
+                            + e.getCause().getMessage());
+                    break;
+                }
+
+                Transaction transaction = new Transaction();
+                String problem = mapper.map(record, transaction);
+                if (problem != null) {
+                    session.reject(row, problem);
+                    continue;
+                }
+                session.accept(row, transaction);
+            }
+        } finally {
+            session.flush();
+        }
+
+        return session.finish(completed);
+    }
+
+    // Сопоставляет заголовки файла с колонками; первый подходящий заголовок побеждает
+    private static Map<Column, String> mapColumns(List<String> headerNames) {
+        Map<String, String> byNormalized = new HashMap<>();
+        for (String header : headerNames) {
+            if (header != null) {
+                byNormalized.putIfAbsent(normalize(header), header);
+            }
+        }
+        Map<Column, String> columns = new EnumMap<>(Column.class);
+        for (Column column : Column.values()) {
+            column.headers.stream()
+                    .map(byNormalized::get)
+                    .filter(header -> header != null && !columns.containsValue(header))
+                    .findFirst()
+                    .ifPresent(header -> columns.put(column, header));
+        }
+        return columns;
+    }
+
+    // Состояние одного импорта: справочники из снимка, банки по БИК и правила категорий
+    private class RowMapper {
+
+        private final Map<String, TransactionType> transactionTypes = new HashMap<>();
+        private final Map<String, PersonType> personTypes = new HashMap<>();
+        private final TransactionType income;
+        private final TransactionType expense;
+        private final PersonType defaultPersonType;
+        // БИК → банк. Заполняется из снимка справочников, промахи дочитываются из БД один раз за импорт
+        private final Map<String, Optional<Bank>> banksByBik = new HashMap<>();
+        // Правило 1: колонка «Категория» — название категории пользователя того же типа
+        private final Map<String, Category> categoriesByTitle = new HashMap<>();
+        // Правило 2: название категории встречается в назначении платежа; длинные названия проверяются первыми
+        private final List<Category> categoryKeywords;
+        private Map<Column, String> columns;
+
+        RowMapper(ReferenceDataCache.Snapshot references, List<Category> categories) {
+            for (TransactionType type : references.transactionTypes()) {
+                transactionTypes.put(normalize(type.getCode()), type);
+                transactionTypes.put(normalize(type.getTitle()), type);
+            }
+            for (PersonType type : references.personTypes()) {
+                personTypes.put(normalize(type.getCode()), type);
+                personTypes.put(normalize(type.getTitle()), type);
+            }
+            income = transactionTypes.get(normalize(TransactionType.INCOME));
+            expense = transactionTypes.get(normalize(TransactionType.EXPENSE));
+            defaultPersonType = personTypes.get(normalize(PersonType.INDIVIDUAL));
+            for (Bank bank : references.banks()) {
+                banksByBik.put(bank.getBik(), Optional.of(bank));
+            }
+            for (Category category : categories) {
+                if (category.getTitle() != null && category.getTransactionType() != null) {
+                    categoriesByTitle.putIfAbsent(categoryKey(category.getTransactionType(), category.getTitle()),
+                            category);
+                }
+            }
+            categoryKeywords = categories.stream()
+                    .filter(category -> category.getTitle() != null && category.getTitle().trim().length() >= 3)
+                    .sorted(Comparator.comparingInt((Category category) -> category.getTitle().length()).reversed())
+                    .toList();
+        }
+
+        // Заполняет транзакцию по строке выписки; возвращает текст ошибки или null
+        String map(CSVRecord record, Transaction transaction) {
+            String date = value(record, Column.DATE);
+            if (date == null) {
+                return "Не указана дата операции";
+            }
+            LocalDateTime operationDateTime = parseDate(date);
+            if (operationDateTime == null) {
+                return "Некорректная дата операции: " + date;
+            }
+            transaction.setOperationDateTime(operationDateTime);
+
+            String amountValue = value(record, Column.AMOUNT);
+            if (amountValue == null) {
+                return "Не указана сумма";
+            }
+            BigDecimal amount = parseAmount(amountValue);
+            if (amount == null) {
+                return "Некорректная сумма: " + amountValue;
+            }
+            transaction.setAmount(amount.abs());
+
+            // Без колонки типа направление операции определяется знаком суммы
+            String typeValue = value(record, Column.TRANSACTION_TYPE);
+            TransactionType type = typeValue != null
+                    ? transactionTypes.get(normalize(typeValue))
+                    : amount.signum() < 0 ? expense : income;
+            if (type == null) {
+                return "Не найден тип транзакции: " + typeValue;
+            }
+            transaction.setTransactionType(type);
+
+            String personTypeValue = value(record, Column.PERSON_TYPE);
+            PersonType personType = personTypeValue != null
+                    ? personTypes.get(normalize(personTypeValue))
+                    : defaultPersonType;
+            if (personType == null) {
+                return "Не найден тип лица: " + personTypeValue;
+            }
+            transaction.setPersonType(personType);
+
+            String senderBik = value(record, Column.SENDER_BIK);
+            if (senderBik != null) {
+                Optional<Bank> bank = bankByBik(senderBik);
+                if (bank.isEmpty()) {
+                    return "Банк отправителя с БИК " + senderBik + " не найден";
+                }
+                transaction.setSenderBank(bank.get());
+            }
+            String recipientBik = value(record, Column.RECIPIENT_BIK);
+            if (recipientBik != null) {
+                Optional<Bank> bank = bankByBik(recipientBik);
+                if (bank.isEmpty()) {
+                    return "Банк получателя с БИК " + recipientBik + " не найден";
+                }
+                transaction.setRecipientBank(bank.get());
+            }
+
+            transaction.setComment(value(record, Column.COMMENT));
+            transaction.setSourceAccountNumber(value(record, Column.SOURCE_ACCOUNT));
+            transaction.setRecipientAccountNumber(value(record, Column.RECIPIENT_ACCOUNT));
+            transaction.setRecipientInn(value(record, Column.RECIPIENT_INN));
+            transaction.setRecipientPhone(value(record, Column.RECIPIENT_PHONE));
+
+            String categoryTitle = value(record, Column.CATEGORY);
+            if (categoryTitle != null) {
+                Category category = categoriesByTitle.get(categoryKey(type, categoryTitle));
+                if (category == null) {
+                    return "Категория «" + categoryTitle + "» не найдена";
+                }
+                transaction.setCategory(category);
+            } else {
+                transaction.setCategory(categoryByComment(type, transaction.getComment()));
+            }
+            return null;
+        }
+
+        private Optional<Bank> bankByBik(String bik) {
+            return banksByBik.computeIfAbsent(bik, key -> Optional.ofNullable(bankRepository.findByBik(key)));
+        }
+
+        private Category categoryByComment(TransactionType type, String comment) {
+            if (comment == null) {
+                return null;
+            }
+            String text = normalize(comment);
+            for (Category category : categoryKeywords) {
+                if (category.getTransactionType() != null
+                        && category.getTransactionType().getId().equals(type.getId())
+                        && text.contains(normalize(category.getTitle()))) {
+                    return category;
+                }
+            }
+            return null;
+        }
+
+        private String value(CSVRecord record, Column column) {
+            String header = columns.get(column);
+            if (header == null || !record.isSet(header)) {
+                return null;
+            }
+            String value = record.get(header);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+
+    private static String categoryKey(TransactionType type, String title) {
+        return type.getId() + ":" + normalize(title);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDateTime.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+                // пробуем следующий формат
+            }
+        }
+        return null;
+    }
+
+    // Суммы в выписках пишутся с пробелами между разрядами и запятой перед копейками: "-1 234,50"
+    private static BigDecimal parseAmount(String value) {
+        String digits = value.replaceAll("[\\s\\u00A0\\u202F]", "").replace(',', '.');
+        try {
+            return new BigDecimal(digits);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static DateTimeFormatter dateFormat(String pattern) {
+        return new DateTimeFormatterBuilder()
+                .appendPattern(pattern)
+                .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+                .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+                .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+                .toFormatter();
+    }
+
+    // Выписки из Excel часто начинаются с BOM, который иначе попадает в имя первой колонки
+    private static Reader withoutBom(Reader reader) throws IOException {
+        BufferedReader buffered = new BufferedReader(reader);
+        buffered.mark(1);
+        if (buffered.read() != '\uFEFF') {
+            buffered.reset();
+        }
+        return buffered;
+    }
+}
@@ -0,0 +1,614 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.models.PersonType;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.models.TransactionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Генератор синтетических данных для нагрузочных замеров: банки, пользователи, категории и транзакции
+// с реалистичными распределениями. Транзакции пишутся многострочными INSERT напрямую через JDBC
+// в несколько потоков, минуя JPA; после загрузки пересчитываются дневные агрегаты и расходы по категориям.
+// Данные каждого пользователя зависят только от datagen.seed и номера пользователя.
+// Запускается профилем datagen (SyntheticDataRunner)
+@Service
+public class SyntheticDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    public record Summary(int users, int categories, int banks, long transactions, long millis) {
+    }
+
+    // Категория пользователя и типичная (медианная) сумма операции по ней
+    private record GeneratedCategory(long id, long typeId, double medianAmount) {
+    }
+
+    private record GeneratedUser(long id, int index, long transactions, long firstTransactionId,
+                                 List<GeneratedCategory> incomeCategories,
+                                 List<GeneratedCategory> expenseCategories) {
+    }
+
+    private record CategoryTemplate(String title, double medianAmount) {
+    }
+
+    private static final List<CategoryTemplate> INCOME_CATEGORIES = List.of(
+            new CategoryTemplate("Зарплата", 60_000), new CategoryTemplate("Аванс", 30_000),
+            new CategoryTemplate("Подработка", 12_000), new CategoryTemplate("Проценты по вкладу", 1_500),
+            new CategoryTemplate("Кэшбэк", 400), new CategoryTemplate("Подарки", 5_000));
+
+    private static final List<CategoryTemplate> EXPENSE_CATEGORIES = List.of(
+            new CategoryTemplate("Продукты", 1_800), new CategoryTemplate("Кафе и рестораны", 1_200),
+            new CategoryTemplate("Транспорт", 350), new CategoryTemplate("Такси", 550),
+            new CategoryTemplate("ЖКХ", 6_500), new CategoryTemplate("Связь и интернет", 900),
+            new CategoryTemplate("Аптека", 1_100), new CategoryTemplate("Одежда", 4_500),
+            new CategoryTemplate("Развлечения", 2_000), new CategoryTemplate("Подписки", 450),
+            new CategoryTemplate("Образование", 7_000), new CategoryTemplate("Путешествия", 25_000));
+
+    private static final List<String> EXPENSE_COMMENTS = List.of(
+            "Оплата картой", "Покупка", "Оплата по QR-коду", "Автоплатеж", "Оплата услуг");
+    private static final List<String> INCOME_COMMENTS = List.of(
+            "Зачисление", "Перевод от работодателя", "Начисление процентов", "Возврат средств");
+
+    // Доли статусов, засеваемых DatabaseInitializer: большинство операций выполнено,
+    // новых и находящихся в обработке немного, удаленных, отмененных и возвратов — единицы процентов
+    private static final TransactionStatusCode[] STATUSES = {
+            TransactionStatusCode.COMPLETED, TransactionStatusCode.CONFIRMED, TransactionStatusCode.NEW,
+            TransactionStatusCode.PROCESSING, TransactionStatusCode.CANCELLED, TransactionStatusCode.DELETED,
+            TransactionStatusCode.RETURNED};
+    private static final double[] STATUS_WEIGHTS = {62, 12, 9, 5, 5, 4, 3};
+
+    // Активность по часам суток: ночью операций почти нет, пики в обед и вечером
+    private static final double[] HOUR_WEIGHTS = {
+            1, 0.5, 0.3, 0.2, 0.2, 0.4, 1, 3, 5, 6, 6, 7, 9, 8, 6, 6, 7, 8, 10, 10, 8, 6, 4, 2};
+
+    private static final int TRANSACTION_COLUMNS = 17;
+    private static final String TRANSACTION_INSERT_PREFIX = "INSERT INTO transactions (id, user_id, person_type_id, "
+            + "operation_date_time, transaction_type_id, comment, amount, status_id, sender_bank_id, "
+            + "source_account_number, recipient_bank_id, recipient_account_number, recipient_inn, recipient_phone, "
+            + "category_id, created, updated) VALUES ";
+    // Предел числа параметров одного подготовленного запроса в MySQL
+    private static final int MAX_STATEMENT_PARAMETERS = 65_535;
+    // Запас поверх максимального ID при сдвиге последовательностей Hibernate (allocationSize = 50)
+    private static final int SEQUENCE_MARGIN = 100;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final TransactionStatsService transactionStatsService;
+    private final BudgetService budgetService;
+    private final ReferenceDataCache referenceDataCache;
+
+    @Value("${datagen.users:1000}")
+    private int userCount;
+
+    @Value("${datagen.transactions:1000000}")
+    private long transactionCount;
+
+    @Value("${datagen.banks:30}")
+    private int bankCount;
+
+    @Value("${datagen.months:24}")
+    private int months;
+
+    @Value("${datagen.user-skew:1.0}")
+    private double userSkew;
+
+    @Value("${datagen.threads:4}")
+    private int threads;
+
+    @Value("${datagen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${datagen.seed:42}")
+    private long seed;
+
+    @Value("${datagen.username-prefix:datagen-}")
+    private String usernamePrefix;
+
+    @Value("${datagen.password:password}")
+    private String password;
+
+    @Autowired
+    public SyntheticDataGenerator(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            BCryptPasswordEncoder passwordEncoder,
+            TransactionStatsService transactionStatsService,
+            BudgetService budgetService,
+            ReferenceDataCache referenceDataCache) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionStatsService = transactionStatsService;
+        this.budgetService = budgetService;
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    public Summary generate() throws Exception {
+        if (batchSize < 1 || batchSize * TRANSACTION_COLUMNS > MAX_STATEMENT_PARAMETERS) {
+            throw new IllegalArgumentException("datagen.batch-size должен быть от 1 до "
+                    + MAX_STATEMENT_PARAMETERS / TRANSACTION_COLUMNS);
+        }
+        long started = System.nanoTime();
+        logger.info("Генерация данных: {} пользователей, {} транзакций, {} потоков, по {} строк в INSERT",
+                userCount, transactionCount, threads, batchSize);
+
+        ReferenceIds references = loadReferenceIds();
+        List<Long> bankIds = ensureBanks();
+        List<GeneratedUser> users = createUsers(references);
+        int categories = users.stream()
+                .mapToInt(user -> user.incomeCategories().size() + user.expenseCategories().size())
+                .sum();
+
+        AtomicLong written = new AtomicLong();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> tasks = new ArrayList<>();
+            // Сначала самые объемные пользователи, чтобы потоки заканчивали примерно одновременно
+            users.stream()
+                    .sorted(Comparator.comparingLong(GeneratedUser::transactions).reversed())
+                    .forEach(user -> tasks.add(executor.submit(() -> {
+                        insertTransactions(user, references, bankIds, written);
+                        return null;
+                    })));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+
+        advanceSequence("transaction_seq", "transactions");
+        advanceSequence("categories_seq", "categories");
+        rebuildAggregates();
+        referenceDataCache.refresh();
+
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        logger.info("Сгенерировано {} транзакций, {} пользователей, {} категорий за {} мс ({} строк/с)",
+                written.get(), users.size(), categories, millis, written.get() * 1000 / Math.max(millis, 1));
+        return new Summary(users.size(), categories, bankIds.size(), written.get(), millis);
+    }
+
+    private record ReferenceIds(long individualId, long legalId, long incomeTypeId, long expenseTypeId,
+                                long transferTypeId, long[] statusIds) {
+    }
+
+    private ReferenceIds loadReferenceIds() {
+        long[] statusIds = new long[STATUSES.length];
+        for (int i = 0; i < STATUSES.length; i++) {
+            statusIds[i] = idByCode("transaction_statuses", STATUSES[i].name());
+        }
+        return new ReferenceIds(
+                idByCode("person_types", PersonType.INDIVIDUAL), idByCode("person_types", PersonType.LEGAL),
+                idByCode("transaction_types", TransactionType.INCOME),
+                idByCode("transaction_types", TransactionType.EXPENSE),
+                idByCode("transaction_types", TransactionType.TRANSFER), statusIds);
+    }
+
+    // Банки, засеянные DatabaseInitializer, дополняются до datagen.banks
+    private List<Long> ensureBanks() {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM banks", Integer.class);
+        List<Object[]> banks = new ArrayList<>();
+        for (int n = existing + 1; n <= bankCount; n++) {
+            banks.add(new Object[]{"Банк " + n, String.format("04%07d", 4_525_000 + n), LocalDateTime.now()});
+        }
+        if (!banks.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO banks (title, bik, created_at) VALUES (?, ?, ?)", banks);
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM banks ORDER BY id", Long.class);
+    }
+
+    private List<GeneratedUser> createUsers(ReferenceIds references) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username LIKE ?", Integer.class, usernamePrefix + "%");
+        String passwordHash = passwordEncoder.encode(password);
+        LocalDateTime createdAt = LocalDateTime.now();
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            rows.add(new Object[]{username(existing + i), passwordHash, "USER", createdAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, role, created_at) VALUES (?, ?, ?, ?)", rows);
+
+        long[] volumes = userVolumes();
+        long nextCategoryId = maxId("categories") + 1;
+        long nextTransactionId = maxId("transactions") + 1;
+        List<Object[]> categoryRows = new ArrayList<>();
+        List<GeneratedUser> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            int index = existing + i;
+            long userId = jdbcTemplate.queryForObject(
+                    "SELECT id FROM users WHERE username = ?", Long.class, username(index));
+            SplittableRandom random = new SplittableRandom(seed * 1_000_003 + index);
+
+            List<GeneratedCategory> income = new ArrayList<>();
+            for (CategoryTemplate template : pick(INCOME_CATEGORIES, 2 + random.nextInt(3), random)) {
+                income.add(new GeneratedCategory(nextCategoryId, references.incomeTypeId(), template.medianAmount()));
+                categoryRows.add(categoryRow(nextCategoryId++, template, userId, references.incomeTypeId(),
+                        null, createdAt));
+            }
+            List<GeneratedCategory> expense = new ArrayList<>();
+            // Дешевые категории идут первыми: при выборе категории операции они получают больший вес
+            List<CategoryTemplate> expenseTemplates = pick(EXPENSE_CATEGORIES, 5 + random.nextInt(6), random).stream()
+                    .sorted(Comparator.comparingDouble(CategoryTemplate::medianAmount))
+                    .toList();
+            for (CategoryTemplate template : expenseTemplates) {
+                expense.add(new GeneratedCategory(nextCategoryId, references.expenseTypeId(), template.medianAmount()));
+                // У половины категорий расходов есть месячный бюджет
+                BigDecimal budget = random.nextBoolean()
+                        ? BigDecimal.valueOf(Math.round(template.medianAmount() * (5 + random.nextInt(20))))
+                        : null;
+                categoryRows.add(categoryRow(nextCategoryId++, template, userId, references.expenseTypeId(),
+                        budget, createdAt));
+            }
+
+            users.add(new GeneratedUser(userId, index, volumes[i], nextTransactionId, income, expense));
+            nextTransactionId += volumes[i];
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO categories (id, title, user_id, transaction_type_id, budget, "
+                + "created, updated) VALUES (?, ?, ?, ?, ?, ?, ?)", categoryRows);
+        return users;
+    }
+
+    // Объем операций по закону Ципфа: i-й пользователь получает долю, пропорциональную 1 / i^skew.
+    // Номера перемешиваются, чтобы самые активные пользователи не шли подряд
+    private long[] userVolumes() {
+        double[] weights = new double[userCount];
+        double total = 0;
+        for (int i = 0; i < userCount; i++) {
+            weights[i] = 1 / Math.pow(i + 1, userSkew);
+            total += weights[i];
+        }
+        long[] volumes = new long[userCount];
+        long assigned = 0;
+        for (int i = 0; i < userCount; i++) {
+            volumes[i] = (long) Math.floor(transactionCount * weights[i] / total);
+            assigned += volumes[i];
+        }
+        // Остаток от округления достается самому активному пользователю
+        volumes[0] += transactionCount - assigned;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = userCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = volumes[i];
+            volumes[i] = volumes[j];
+            volumes[j] = swap;
+        }
+        return volumes;
+    }
+
+    private void insertTransactions(GeneratedUser user, ReferenceIds references, List<Long> bankIds,
+                                    AtomicLong written) throws SQLException {
+        if (user.transactions() == 0) {
+            return;
+        }
+        SplittableRandom random = new SplittableRandom(seed * 7_919 + user.index());
+        LocalDateTime periodEnd = LocalDate.now().atStartOfDay();
+        LocalDateTime periodStart = periodEnd.minusMonths(months);
+        int days = (int) ChronoUnit.DAYS.between(periodStart, periodEnd);
+        double[] bankWeights = zipfWeights(bankIds.size());
+        double[] hourWeights = cumulative(HOUR_WEIGHTS);
+        double[] statusWeights = cumulative(STATUS_WEIGHTS);
+        // Частые мелкие категории (продукты, транспорт) встречаются чаще крупных
+        double[] expenseWeights = cumulative(zipfWeights(user.expenseCategories().size()));
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            relaxSessionChecks(connection);
+            try {
+                PreparedStatement fullBatch = connection.prepareStatement(insertSql(batchSize));
+                try (fullBatch) {
+                    long id = user.firstTransactionId();
+                    long remaining = user.transactions();
+                    while (remaining > 0) {
+                        int rows = (int) Math.min(batchSize, remaining);
+                        PreparedStatement statement = rows == batchSize
+                                ? fullBatch
+                                : connection.prepareStatement(insertSql(rows));
+                        int parameter = 1;
+                        for (int row = 0; row < rows; row++) {
+                            parameter = bindTransaction(statement, parameter, id++, user, references, bankIds,
+                                    bankWeights, hourWeights, statusWeights, expenseWeights, periodStart, days,
+                                    random);
+                        }
+                        statement.executeUpdate();
+                        if (statement != fullBatch) {
+                            statement.close();
+                        }
+                        connection.commit();
+                        remaining -= rows;
+
+                        long total = written.addAndGet(rows);
+                        if (total / 1_000_000 != (total - rows) / 1_000_000) {
+                            logger.info("Записано {} транзакций", total);
+                        }
+                    }
+                }
+            } finally {
+                restoreSessionChecks(connection);
+            }
+        }
+    }
+
+    private int bindTransaction(PreparedStatement statement, int parameter, long id, GeneratedUser user,
+                                ReferenceIds references, List<Long> bankIds, double[] bankWeights,
+                                double[] hourWeights, double[] statusWeights, double[] expenseWeights,
+                                LocalDateTime periodStart, int days, SplittableRandom random) throws SQLException {
+        int typeRoll = random.nextInt(100);
+        GeneratedCategory category;
+        long typeId;
+        double median;
+        if (typeRoll < 20) {
+            category = user.incomeCategories().get(random.nextInt(user.incomeCategories().size()));
+            typeId = references.incomeTypeId();
+            median = category.medianAmount();
+        } else if (typeRoll < 96) {
+            category = user.expenseCategories().get(choose(expenseWeights, random));
+            typeId = references.expenseTypeId();
+            median = category.medianAmount();
+        } else {
+            category = null;
+            typeId = references.transferTypeId();
+            median = 10_000;
+        }
+
+        LocalDateTime operationDateTime = periodStart
+                .plusDays(random.nextInt(days))
+                .plusHours(choose(hourWeights, random))
+                .plusMinutes(random.nextInt(60))
+                .plusSeconds(random.nextInt(60));
+        BigDecimal amount = amount(median, typeId == references.expenseTypeId(), operationDateTime, random);
+        boolean legal = random.nextInt(100) < 20;
+        long senderBankId = bankIds.get(choose(bankWeights, random));
+        long recipientBankId = bankIds.get(choose(bankWeights, random));
+        String comment = random.nextInt(100) < 30 ? null
+                : typeId == references.incomeTypeId()
+                ? INCOME_COMMENTS.get(random.nextInt(INCOME_COMMENTS.size()))
+                : EXPENSE_COMMENTS.get(random.nextInt(EXPENSE_COMMENTS.size()));
+        String phone = !legal && random.nextInt(100) < 70
+                ? "+79" + digits(random, 9)
+                : null;
+
+        statement.setLong(parameter++, id);
+        statement.setLong(parameter++, user.id());
+        statement.setLong(parameter++, legal ? references.legalId() : references.individualId());
+        statement.setObject(parameter++, operationDateTime);
+        statement.setLong(parameter++, typeId);
+        statement.setString(parameter++, comment);
+        statement.setBigDecimal(parameter++, amount);
+        statement.setLong(parameter++, references.statusIds()[choose(statusWeights, random)]);
+        statement.setLong(parameter++, senderBankId);
+        statement.setString(parameter++, "40817810" + digits(random, 12));
+        statement.setLong(parameter++, recipientBankId);
+        statement.setString(parameter++, (legal ? "40702810" : "40817810") + digits(random, 12));
+        statement.setString(parameter++, legal ? legalInn(random) : individualInn(random));
+        statement.setString(parameter++, phone);
+        if (category != null) {
+            statement.setLong(parameter++, category.id());
+        } else {
+            statement.setNull(parameter++, Types.BIGINT);
+        }
+        statement.setObject(parameter++, operationDateTime);
+        statement.setObject(parameter++, operationDateTime);
+        return parameter;
+    }
+
+    // Логнормальный разброс вокруг медианы категории; расходы растут к декабрю и проседают летом
+    private static BigDecimal amount(double median, boolean expense, LocalDateTime operationDateTime,
+                                     SplittableRandom random) {
+        double value = median * Math.exp(0.6 * random.nextGaussian());
+        if (expense) {
+            int month = operationDateTime.getMonthValue();
+            value *= 1 + 0.15 * Math.cos(2 * Math.PI * (month - 12) / 12.0);
+            if (month == 12) {
+                value *= 1.3;
+            }
+        }
+        return BigDecimal.valueOf(Math.min(Math.max(value, 1), 9_999_999_999.0)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // ИНН юридического лица: 10 цифр, последняя — контрольная
+    static String legalInn(SplittableRandom random) {
+        int[] digits = innPrefix(random, 10);
+        digits[9] = checksum(digits, new int[]{2, 4, 10, 3, 5, 9, 4, 6, 8});
+        return join(digits);
+    }
+
+    // ИНН физического лица: 12 цифр, две последние — контрольные
+    static String individualInn(SplittableRandom random) {
+        int[] digits = innPrefix(random, 12);
+        digits[10] = checksum(digits, new int[]{7, 2, 4, 10, 3, 5, 9, 4, 6, 8});
+        digits[11] = checksum(digits, new int[]{3, 7, 2, 4, 10, 3, 5, 9, 4, 6, 8});
+        return join(digits);
+    }
+
+    // Первые две цифры — код региона (01–89)
+    private static int[] innPrefix(SplittableRandom random, int length) {
+        int[] digits = new int[length];
+        int region = 1 + random.nextInt(89);
+        digits[0] = region / 10;
+        digits[1] = region % 10;
+        for (int i = 2; i < length; i++) {
+            digits[i] = random.nextInt(10);
+        }
+        return digits;
+    }
+
+    private static int checksum(int[] digits, int[] coefficients) {
+        int sum = 0;
+        for (int i = 0; i < coefficients.length; i++) {
+            sum += digits[i] * coefficients[i];
+        }
+        return sum % 11 % 10;
+    }
+
+    private static String join(int[] digits) {
+        StringBuilder result = new StringBuilder(digits.length);
+        for (int digit : digits) {
+            result.append(digit);
+        }
+        return result.toString();
+    }
+
+    private static String digits(SplittableRandom random, int length) {
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            result.append(random.nextInt(10));
+        }
+        return result.toString();
+    }
+
+    private static double[] zipfWeights(int size) {
+        double[] weights = new double[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = 1.0 / (i + 1);
+        }
+        return weights;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] result = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            result[i] = sum;
+        }
+        return result;
+    }
+
+    // Индекс по накопленным весам
+    private static int choose(double[] cumulativeWeights, SplittableRandom random) {
+        double roll = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private static <T> List<T> pick(List<T> items, int count, SplittableRandom random) {
+        List<T> shuffled = new ArrayList<>(items);
+        for (int i = shuffled.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            T swap = shuffled.get(i);
+            shuffled.set(i, shuffled.get(j));
+            shuffled.set(j, swap);
+        }
+        return shuffled.subList(0, Math.min(count, shuffled.size()));
+    }
+
+    private static Object[] categoryRow(long id, CategoryTemplate template, long userId, long typeId,
+                                        BigDecimal budget, LocalDateTime createdAt) {
+        return new Object[]{id, template.title(), userId, typeId, budget, createdAt, createdAt};
+    }
+
+    private static String insertSql(int rows) {
+        String placeholders = "(" + "?, ".repeat(TRANSACTION_COLUMNS - 1) + "?)";
+        StringBuilder sql = new StringBuilder(TRANSACTION_INSERT_PREFIX.length() + rows * (placeholders.length() + 2))
+                .append(TRANSACTION_INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(placeholders);
+        }
+        return sql.toString();
+    }
+
+    private String username(int index) {
+        return String.format("%suser-%06d", usernamePrefix, index + 1);
+    }
+
+    // Проверки уникальности и внешних ключей в сессии MySQL отключаются на время загрузки:
+    // ID и ссылки формирует сам генератор
+    private static void relaxSessionChecks(Connection connection) throws SQLException {
+        if (isMySql(connection)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET unique_checks = 0, foreign_key_checks = 0");
+            }
+        }
+    }
+
+    // Соединение взято из пула приложения и вернется в него, поэтому проверки включаются обратно.
+    // Если это не удалось, соединение прерывается, и пул заменит его новым
+    private static void restoreSessionChecks(Connection connection) {
+        try {
+            if (isMySql(connection)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET unique_checks = 1, foreign_key_checks = 1");
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Не удалось включить проверки в сессии MySQL, соединение закрывается: {}", e.getMessage());
+            try {
+                connection.abort(Runnable::run);
+            } catch (SQLException abortError) {
+                logger.warn("Не удалось прервать соединение: {}", abortError.getMessage());
+            }
+        }
+    }
+
+    // Строки вставлены с явными ID, поэтому последовательность Hibernate сдвигается за максимальный ID,
+    // иначе приложение попробует выдать уже занятые значения. В MySQL последовательность — таблица
+    private void advanceSequence(String sequence, String table) throws SQLException {
+        long next = maxId(table) + SEQUENCE_MARGIN;
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            if (isMySql(connection)) {
+                statement.executeUpdate("UPDATE " + sequence + " SET next_val = GREATEST(next_val, " + next + ")");
+            } else {
+                statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+            }
+        }
+    }
+
+    // Агрегаты пересчитываются целиком, включая данные прежних пользователей
+    private void rebuildAggregates() {
+        long started = System.nanoTime();
+        jdbcTemplate.update("DELETE FROM transaction_daily_stats");
+        jdbcTemplate.update("DELETE FROM category_spend");
+        transactionStatsService.rebuildIfEmpty();
+        budgetService.rebuildIfEmpty();
+        logger.info("Агрегаты пересчитаны за {} мс", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static boolean isMySql(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+    }
+
+    private long maxId(String table) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+    }
+
+    private long idByCode(String table, String code) {
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table + " WHERE code = ?", Long.class, code);
+        if (id == null) {
+            throw new IllegalStateException("В таблице " + table + " нет записи с кодом " + code
+                    + ": справочники заполняет DatabaseInitializer");
+        }
+        return id;
+    }
+}
@@ -0,0 +1,46 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.config.CacheNames;
+import com.borisey.personal_finance.specifications.TransactionFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+// Кратковременный кэш общего количества транзакций по набору фильтров пользователя
+// (кэш CacheNames.TRANSACTION_COUNTS, настройки — cache.transaction-counts.*).
+// В ключ входит версия данных пользователя, поэтому любое изменение его транзакций
+// делает все его записи недостижимыми
+@Service
+public class TransactionCountCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionCountCache.class);
+
+    private final UserDataVersions dataVersions;
+    private final Cache counts;
+
+    public TransactionCountCache(UserDataVersions dataVersions, CacheManager cacheManager) {
+        this.dataVersions = dataVersions;
+        this.counts = Objects.requireNonNull(cacheManager.getCache(CacheNames.TRANSACTION_COUNTS),
+                "Нет кэша " + CacheNames.TRANSACTION_COUNTS);
+    }
+
+    public long count(Long userId, TransactionFilter filter, LongSupplier loader) {
+        String key = userId + "|v" + dataVersions.current(userId) + "|" + filter.cacheKey();
+
+        Long cached = counts.get(key, Long.class);
+        if (cached != null) {
+            logger.debug("Количество транзакций пользователя {} по фильтру '{}' взято из кэша",
+                    userId, filter.cacheKey());
+            return cached;
+        }
+
+        long count = loader.getAsLong();
+        counts.put(key, count);
+        return count;
+    }
+}
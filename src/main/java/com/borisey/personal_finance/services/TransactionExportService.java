@@ -0,0 +1,124 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.dto.TransactionView;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.repo.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Машиночитаемая выгрузка транзакций (NDJSON и CSV) для интеграций. Строки плоского представления
+// читаются из курсора и сразу пишутся в буферизованный поток: ни сущностей, ни списка строк в памяти нет
+@Service
+public class TransactionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionExportService.class);
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    // Выгрузка в хронологическом порядке — по индексу (user_id, operation_date_time, id)
+    private static final Sort EXPORT_ORDER = Sort.by("operationDateTime").and(Sort.by("id"));
+    // Тот же формат дат, что и в JSON
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+    // Колонки CSV совпадают с полями NDJSON. Импорт выписки (с delimiter=,) берет из файла дату, модуль суммы,
+    // тип по transactionTypeCode, категорию по названию и реквизиты; банки (в файле нет БИК) и тип лица не переносятся
+    private static final String[] CSV_HEADER = {
+            "id", "operationDateTime", "amount", "comment", "personTypeId",
+            "transactionTypeId", "transactionTypeCode", "transactionTypeTitle",
+            "statusId", "statusCode", "statusTitle",
+            "senderBankId", "senderBankTitle", "sourceAccountNumber",
+            "recipientBankId", "recipientBankTitle", "recipientAccountNumber",
+            "recipientInn", "recipientPhone", "categoryId", "categoryTitle", "created", "updated"};
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectWriter rowWriter;
+
+    @Autowired
+    public TransactionExportService(TransactionRepository transactionRepository, ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        // Без сброса после каждой строки, иначе буферизация и сжатие теряют смысл
+        this.rowWriter = objectMapper.writerFor(TransactionView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // Один JSON-объект на строку; возвращает количество выгруженных транзакций
+    @Transactional(readOnly = true)
+    public long writeNdjson(Specification<Transaction> spec, OutputStream out) throws IOException {
+        long rows = 0;
+        try (Stream<TransactionView> views = transactionRepository.streamViews(spec, EXPORT_ORDER)) {
+            Writer writer = bufferedWriter(out);
+            JsonGenerator generator = rowWriter.createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Вместо пробела между объектами верхнего уровня — перевод строки после каждого
+            generator.setRootValueSeparator(null);
+            Iterator<TransactionView> iterator = views.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                rows++;
+            }
+            generator.close();
+            writer.flush();
+        }
+        logger.info("Выгружено в NDJSON {} транзакций", rows);
+        return rows;
+    }
+
+    // CSV по RFC 4180 с заголовком из имен полей
+    @Transactional(readOnly = true)
+    public long writeCsv(Specification<Transaction> spec, OutputStream out) throws IOException {
+        long rows = 0;
+        CSVFormat format = CSVFormat.RFC4180.builder().setHeader(CSV_HEADER).build();
+
+        try (Stream<TransactionView> views = transactionRepository.streamViews(spec, EXPORT_ORDER)) {
+            Writer writer = bufferedWriter(out);
+            CSVPrinter printer = new CSVPrinter(writer, format);
+            Iterator<TransactionView> iterator = views.iterator();
+            while (iterator.hasNext()) {
+                TransactionView view = iterator.next();
+                printer.printRecord(view.id(), formatDate(view.operationDateTime()),
+                        view.amount() != null ? view.amount().toPlainString() : null,
+                        view.comment(), view.personTypeId(),
+                        view.transactionTypeId(), view.transactionTypeCode(), view.transactionTypeTitle(),
+                        view.statusId(), view.statusCode(), view.statusTitle(),
+                        view.senderBankId(), view.senderBankTitle(), view.sourceAccountNumber(),
+                        view.recipientBankId(), view.recipientBankTitle(), view.recipientAccountNumber(),
+                        view.recipientInn(), view.recipientPhone(), view.categoryId(), view.categoryTitle(),
+                        formatDate(view.created()), formatDate(view.updated()));
+                rows++;
+            }
+            printer.flush();
+        }
+        logger.info("Выгружено в CSV {} транзакций", rows);
+        return rows;
+    }
+
+    private static String formatDate(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.format(DATE_TIME_FORMATTER) : null;
+    }
+
+    // Поток ответа не закрывается: им управляет вызывающий код (например, обертка gzip)
+    private static Writer bufferedWriter(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+}
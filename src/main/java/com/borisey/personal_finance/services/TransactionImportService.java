@@ -0,0 +1,168 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.dto.ImportReport;
+import com.borisey.personal_finance.models.Bank;
+import com.borisey.personal_finance.models.Category;
+import com.borisey.personal_finance.models.PersonType;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.models.TransactionType;
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.repo.CategoryRepository;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Массовый импорт транзакций из JSON-массива или NDJSON. Записи читаются и проверяются по одной,
+// корректные сохраняются пакетами по transactions.import.batch-size, каждый пакет — отдельной транзакцией БД
+@Service
+public class TransactionImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionImportService.class);
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionService transactionService;
+    private final TransactionStatusRegistry statusRegistry;
+    private final ReferenceDataCache referenceDataCache;
+    private final CategoryRepository categoryRepository;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public TransactionImportService(
+            ObjectMapper objectMapper,
+            Validator validator,
+            TransactionService transactionService,
+            TransactionStatusRegistry statusRegistry,
+            ReferenceDataCache referenceDataCache,
+            CategoryRepository categoryRepository,
+            @Value("${transactions.import.batch-size:500}") int batchSize,
+            @Value("${transactions.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionService = transactionService;
+        this.statusRegistry = statusRegistry;
+        this.referenceDataCache = referenceDataCache;
+        this.categoryRepository = categoryRepository;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    // Принимает как JSON-массив объектов, так и объекты, разделенные переводами строк (NDJSON)
+    public ImportReport importTransactions(User user, InputStream body) throws IOException {
+        ReferenceDataCache.Snapshot references = referenceDataCache.get();
+        Set<Long> personTypeIds = idsOf(references.personTypes(), PersonType::getId);
+        Set<Long> transactionTypeIds = idsOf(references.transactionTypes(), TransactionType::getId);
+        Set<Long> bankIds = idsOf(references.banks(), Bank::getId);
+        Map<Long, Category> categories = categoryRepository.findByUserId(user.getId(), Sort.unsorted()).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        ImportSession session = new ImportSession(user, transactionService, validator,
+                statusRegistry.get(TransactionStatusCode.NEW), batchSize, maxReportedErrors);
+        long row = 0;
+        boolean completed = true;
+
+        logger.info("Пользователь '{}' начал импорт транзакций", user.getUsername());
+
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            // Для JSON-массива итератор должен начинать с первого элемента, а не с открывающей скобки
+            if (parser.nextToken() == JsonToken.START_ARRAY) {
+                parser.nextToken();
+            }
+            MappingIterator<Transaction> rows = objectMapper.readerFor(Transaction.class).readValues(parser);
+
+            while (true) {
+                Transaction transaction;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    row++;
+                    transaction = rows.nextValue();
+                } catch (JsonParseException e) {
+                    // Дальше разбирать поток невозможно: неизвестно, где начинается следующая запись
+                    completed = false;
+                    session.fail(row, "Некорректный JSON (строка " + e.getLocation().getLineNr() + "): "
+                            + e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    // Запись синтаксически корректна, но не приводится к транзакции — пропускаем только ее
+                    session.reject(row, "Некорректные данные: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                String problem = validate(transaction, personTypeIds, transactionTypeIds, bankIds, categories);
+                if (problem != null) {
+                    session.reject(row, problem);
+                    continue;
+                }
+                session.accept(row, transaction);
+            }
+        } finally {
+            // Уже проверенные записи сохраняем и при обрыве разбора
+            session.flush();
+        }
+
+        return session.finish(completed);
+    }
+
+    // Проверка ссылок на справочники и категории пользователя; аннотации сущности проверяет ImportSession
+    private String validate(Transaction transaction,
+                            Set<Long> personTypeIds,
+                            Set<Long> transactionTypeIds,
+                            Set<Long> bankIds,
+                            Map<Long, Category> categories) {
+        if (transaction == null) {
+            return "Пустая запись";
+        }
+        if (transaction.getOperationDateTime() == null) {
+            return "Не указана дата операции";
+        }
+        if (transaction.getAmount() == null) {
+            return "Не указана сумма";
+        }
+        if (transaction.getPersonType() == null || !personTypeIds.contains(transaction.getPersonType().getId())) {
+            return "Не указан или не найден тип лица";
+        }
+        if (transaction.getTransactionType() == null
+                || !transactionTypeIds.contains(transaction.getTransactionType().getId())) {
+            return "Не указан или не найден тип транзакции";
+        }
+        if (transaction.getSenderBank() != null && !bankIds.contains(transaction.getSenderBank().getId())) {
+            return "Банк отправителя не найден";
+        }
+        if (transaction.getRecipientBank() != null && !bankIds.contains(transaction.getRecipientBank().getId())) {
+            return "Банк получателя не найден";
+        }
+        if (transaction.getCategory() != null) {
+            Category category = categories.get(transaction.getCategory().getId());
+            if (category == null) {
+                return "Категория не найдена";
+            }
+            transaction.setCategory(category);
+        }
+        return null;
+    }
+
+    private static <T> Set<Long> idsOf(List<T> items, Function<T, Long> id) {
+        return items.stream().map(id).collect(Collectors.toSet());
+    }
+}
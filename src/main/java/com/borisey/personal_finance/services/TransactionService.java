@@ -0,0 +1,180 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.models.CategorySpendKey;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionDailyStatKey;
+import com.borisey.personal_finance.models.TransactionStatus;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.repo.CategorySpendRepository;
+import com.borisey.personal_finance.repo.TransactionDailyStatRepository;
+import com.borisey.personal_finance.repo.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Запись транзакций вместе с поддержкой дневных агрегатов и месячных расходов по категориям,
+// сбросом кэша количества и версией данных пользователя
+@Service
+public class TransactionService {
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionDailyStatRepository dailyStatRepository;
+    private final UserDataVersions dataVersions;
+    private final CategorySpendRepository categorySpendRepository;
+    private final TransactionStatusRegistry statusRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public TransactionService(
+            TransactionRepository transactionRepository,
+            TransactionDailyStatRepository dailyStatRepository,
+            UserDataVersions dataVersions,
+            CategorySpendRepository categorySpendRepository,
+            TransactionStatusRegistry statusRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.dailyStatRepository = dailyStatRepository;
+        this.dataVersions = dataVersions;
+        this.categorySpendRepository = categorySpendRepository;
+        this.statusRegistry = statusRegistry;
+    }
+
+    @Transactional
+    public Transaction create(Transaction transaction) {
+        Transaction saved = transactionRepository.save(transaction);
+        applyDelta(TransactionDailyStatKey.of(saved), 1, saved.getAmount());
+        applySpendDelta(spendKey(saved), 1, saved.getAmount());
+        invalidateCachesAfterCommit(saved.getUser().getId());
+        return saved;
+    }
+
+    // Пакетная запись для импорта: вставки уходят JDBC-пакетами, агрегаты обновляются
+    // один раз на каждый затронутый ключ. После записи контекст очищается, чтобы при импорте
+    // в рамках одного запроса не накапливались тысячи управляемых сущностей
+    @Transactional
+    public List<Transaction> createAll(Long userId, List<Transaction> transactions) {
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+
+        Map<TransactionDailyStatKey, BigDecimal> amounts = new HashMap<>();
+        Map<TransactionDailyStatKey, Long> counts = new HashMap<>();
+        for (Transaction transaction : saved) {
+            TransactionDailyStatKey key = TransactionDailyStatKey.of(transaction);
+            amounts.merge(key, transaction.getAmount(), BigDecimal::add);
+            counts.merge(key, 1L, Long::sum);
+        }
+        counts.forEach((key, count) -> applyDelta(key, count, amounts.get(key)));
+
+        Map<CategorySpendKey, BigDecimal> spendAmounts = new HashMap<>();
+        Map<CategorySpendKey, Long> spendCounts = new HashMap<>();
+        for (Transaction transaction : saved) {
+            CategorySpendKey key = spendKey(transaction);
+            if (key != null) {
+                spendAmounts.merge(key, transaction.getAmount(), BigDecimal::add);
+                spendCounts.merge(key, 1L, Long::sum);
+            }
+        }
+        spendCounts.forEach((key, count) -> applySpendDelta(key, count, spendAmounts.get(key)));
+
+        entityManager.flush();
+        entityManager.clear();
+        invalidateCachesAfterCommit(userId);
+        return saved;
+    }
+
+    @Transactional
+    public Transaction update(Transaction transaction, Transaction details) {
+        // Ключ и сумму до изменения нужно снять до копирования новых значений
+        TransactionDailyStatKey oldKey = TransactionDailyStatKey.of(transaction);
+        CategorySpendKey oldSpendKey = spendKey(transaction);
+        BigDecimal oldAmount = transaction.getAmount();
+
+        transaction.setPersonType(details.getPersonType());
+        transaction.setOperationDateTime(details.getOperationDateTime());
+        transaction.setComment(details.getComment());
+        transaction.setAmount(details.getAmount());
+        transaction.setStatus(details.getStatus());
+        transaction.setSenderBank(details.getSenderBank());
+        transaction.setRecipientBank(details.getRecipientBank());
+        transaction.setRecipientInn(details.getRecipientInn());
+        transaction.setCategory(details.getCategory());
+        transaction.setRecipientPhone(details.getRecipientPhone());
+        transaction.setUpdated(LocalDateTime.now());
+
+        Transaction saved = transactionRepository.save(transaction);
+        applyDelta(oldKey, -1, oldAmount.negate());
+        applyDelta(TransactionDailyStatKey.of(saved), 1, saved.getAmount());
+        applySpendDelta(oldSpendKey, -1, oldAmount.negate());
+        applySpendDelta(spendKey(saved), 1, saved.getAmount());
+        invalidateCachesAfterCommit(saved.getUser().getId());
+        return saved;
+    }
+
+    @Transactional
+    public Transaction markDeleted(Transaction transaction, TransactionStatus deletedStatus) {
+        TransactionDailyStatKey oldKey = TransactionDailyStatKey.of(transaction);
+        CategorySpendKey oldSpendKey = spendKey(transaction);
+
+        transaction.setStatus(deletedStatus);
+        transaction.setUpdated(LocalDateTime.now());
+
+        Transaction saved = transactionRepository.save(transaction);
+        applyDelta(oldKey, -1, saved.getAmount().negate());
+        applyDelta(TransactionDailyStatKey.of(saved), 1, saved.getAmount());
+        // Удаленная транзакция из расхода категории просто вычитается
+        applySpendDelta(oldSpendKey, -1, saved.getAmount().negate());
+        invalidateCachesAfterCommit(saved.getUser().getId());
+        return saved;
+    }
+
+    private void applyDelta(TransactionDailyStatKey key, long countDelta, BigDecimal amountDelta) {
+        dailyStatRepository.applyDelta(key.getUserId(), key.getDay(), key.getTransactionTypeId(),
+                key.getCategoryId(), key.getStatusId(), key.getSenderBankId(), key.getRecipientBankId(),
+                countDelta, amountDelta);
+    }
+
+    // Удаленные транзакции и транзакции без категории в расходах не учитываются
+    private CategorySpendKey spendKey(Transaction transaction) {
+        if (transaction.getStatus() != null
+                && statusRegistry.idOf(TransactionStatusCode.DELETED).equals(transaction.getStatus().getId())) {
+            return null;
+        }
+        return CategorySpendKey.of(transaction);
+    }
+
+    private void applySpendDelta(CategorySpendKey key, long countDelta, BigDecimal amountDelta) {
+        if (key != null) {
+            categorySpendRepository.applyDelta(key.getUserId(), key.getCategoryId(), key.getPeriodStart(),
+                    countDelta, amountDelta);
+        }
+    }
+
+    // Сбрасываем кэши после фиксации, иначе параллельный запрос может закэшировать старое значение
+    private void invalidateCachesAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateCaches(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateCaches(userId);
+            }
+        });
+    }
+
+    // Новая версия данных делает недостижимыми записи пользователя во всех кэшах, где она входит в ключ
+    private void invalidateCaches(Long userId) {
+        dataVersions.bump(userId);
+    }
+}
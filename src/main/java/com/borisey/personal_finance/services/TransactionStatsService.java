@@ -0,0 +1,150 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.config.CacheNames;
+import com.borisey.personal_finance.repo.TransactionDailyStatRepository;
+import com.borisey.personal_finance.repo.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+// Статистика по транзакциям на основе дневных агрегатов.
+// Полные дни периода читаются из transaction_daily_stats, неполные первый и последний день — из transactions.
+// Результаты кэшируются с версией данных пользователя в ключе (userDataKeyGenerator)
+@Service
+@Transactional(readOnly = true)
+@CacheConfig(cacheNames = CacheNames.STATS, keyGenerator = "userDataKeyGenerator")
+public class TransactionStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStatsService.class);
+    private final TransactionDailyStatRepository dailyStatRepository;
+    private final TransactionRepository transactionRepository;
+
+    @Autowired
+    public TransactionStatsService(
+            TransactionDailyStatRepository dailyStatRepository,
+            TransactionRepository transactionRepository) {
+        this.dailyStatRepository = dailyStatRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    @Cacheable
+    public List<Object[]> countByStatus(Long userId) {
+        return dailyStatRepository.countByStatus(userId);
+    }
+
+    @Cacheable
+    public List<Object[]> countBySenderBank(Long userId) {
+        return dailyStatRepository.countBySenderBank(userId);
+    }
+
+    @Cacheable
+    public List<Object[]> countByRecipientBank(Long userId) {
+        return dailyStatRepository.countByRecipientBank(userId);
+    }
+
+    @Cacheable
+    public List<Object[]> sumAmountByCategory(Long userId, String typeCode) {
+        return dailyStatRepository.sumAmountByCategory(userId, typeCode);
+    }
+
+    @Cacheable
+    public BigDecimal sumAmountByTransactionType(Long userId, String typeCode,
+                                                 LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate firstFullDay = firstFullDay(startDate);
+        LocalDate lastFullDay = lastFullDay(endDate);
+
+        if (firstFullDay.isAfter(lastFullDay)) {
+            return zeroIfNull(transactionRepository.sumAmountByTransactionType(userId, typeCode, startDate, endDate));
+        }
+
+        BigDecimal total = zeroIfNull(dailyStatRepository.sumAmountByTransactionType(
+                userId, typeCode, firstFullDay, lastFullDay));
+
+        LocalDateTime fullStart = firstFullDay.atStartOfDay();
+        if (startDate.isBefore(fullStart)) {
+            total = total.add(zeroIfNull(transactionRepository.sumAmountByTransactionTypeBefore(
+                    userId, typeCode, startDate, fullStart)));
+        }
+
+        LocalDateTime tailStart = lastFullDay.plusDays(1).atStartOfDay();
+        if (!tailStart.isAfter(endDate)) {
+            total = total.add(zeroIfNull(transactionRepository.sumAmountByTransactionType(
+                    userId, typeCode, tailStart, endDate)));
+        }
+
+        return total;
+    }
+
+    @Cacheable
+    public Long countTransactionsByPeriod(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate firstFullDay = firstFullDay(startDate);
+        LocalDate lastFullDay = lastFullDay(endDate);
+
+        if (firstFullDay.isAfter(lastFullDay)) {
+            return zeroIfNull(transactionRepository.countTransactionsByPeriod(userId, startDate, endDate));
+        }
+
+        long total = zeroIfNull(dailyStatRepository.countTransactions(userId, firstFullDay, lastFullDay));
+
+        LocalDateTime fullStart = firstFullDay.atStartOfDay();
+        if (startDate.isBefore(fullStart)) {
+            total += zeroIfNull(transactionRepository.countTransactionsBefore(userId, startDate, fullStart));
+        }
+
+        LocalDateTime tailStart = lastFullDay.plusDays(1).atStartOfDay();
+        if (!tailStart.isAfter(endDate)) {
+            total += zeroIfNull(transactionRepository.countTransactionsByPeriod(userId, tailStart, endDate));
+        }
+
+        return total;
+    }
+
+    // Пересчитывает агрегаты, если таблица пуста, а транзакции уже есть (первый запуск после обновления)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (dailyStatRepository.count() > 0 || transactionRepository.count() == 0) {
+            return;
+        }
+        int rows = dailyStatRepository.rebuildFromTransactions();
+        logger.info("Дневные агрегаты транзакций пересчитаны: {} строк", rows);
+    }
+
+    // Полный пересчет агрегатов. Приращения не исправляют расхождение с транзакциями
+    // (правка таблиц в обход приложения, сбой старой версии), поэтому его устраняет только пересчет
+    @Transactional
+    public void rebuild() {
+        dailyStatRepository.deleteAllInBatch();
+        int rows = dailyStatRepository.rebuildFromTransactions();
+        logger.info("Дневные агрегаты транзакций пересчитаны заново: {} строк", rows);
+    }
+
+    private static LocalDate firstFullDay(LocalDateTime startDate) {
+        return startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? startDate.toLocalDate()
+                : startDate.toLocalDate().plusDays(1);
+    }
+
+    private static LocalDate lastFullDay(LocalDateTime endDate) {
+        return endDate.toLocalTime().equals(LocalTime.MAX)
+                ? endDate.toLocalDate()
+                : endDate.toLocalDate().minusDays(1);
+    }
+
+    private static BigDecimal zeroIfNull(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static long zeroIfNull(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,72 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.models.TransactionStatus;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.repo.TransactionStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Статусы транзакций по кодам. Загружается один раз после заполнения справочников,
+// чтобы не искать статус по строковому коду в каждом запросе
+@Service
+public class TransactionStatusRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStatusRegistry.class);
+    private final TransactionStatusRepository statusRepository;
+    private volatile Map<TransactionStatusCode, TransactionStatus> statuses;
+
+    @Autowired
+    public TransactionStatusRegistry(TransactionStatusRepository statusRepository) {
+        this.statusRepository = statusRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        load();
+    }
+
+    public Optional<TransactionStatus> find(TransactionStatusCode code) {
+        return Optional.ofNullable(statuses().get(code));
+    }
+
+    public TransactionStatus get(TransactionStatusCode code) {
+        return find(code).orElseThrow(() ->
+                new IllegalStateException("Статус '" + code + "' не найден в системе"));
+    }
+
+    public Long idOf(TransactionStatusCode code) {
+        return get(code).getId();
+    }
+
+    private Map<TransactionStatusCode, TransactionStatus> statuses() {
+        Map<TransactionStatusCode, TransactionStatus> current = statuses;
+        return current != null ? current : load();
+    }
+
+    private synchronized Map<TransactionStatusCode, TransactionStatus> load() {
+        Map<TransactionStatusCode, TransactionStatus> loaded = new EnumMap<>(TransactionStatusCode.class);
+        for (TransactionStatus status : statusRepository.findAll()) {
+            TransactionStatusCode code = status.getStatusCode();
+            if (code != null) {
+                loaded.put(code, status);
+            } else {
+                logger.warn("Статус транзакции с неизвестным кодом '{}' не попал в реестр", status.getCode());
+            }
+        }
+        // Пока справочник не заполнен, не запоминаем пустой реестр
+        if (!loaded.isEmpty()) {
+            statuses = Collections.unmodifiableMap(loaded);
+        }
+        logger.info("Загружен реестр статусов транзакций: {}", loaded.keySet());
+        return loaded;
+    }
+}
@@ -0,0 +1,11 @@
+package com.borisey.personal_finance.services;
+
+// Счетчик версии данных пользователя: увеличивается после каждой записи транзакций или категорий.
+// Входит в ключи кэшей, поэтому после изменения данных старые записи просто перестают находиться.
+// Хранилище выбирает CacheConfig: память процесса для Caffeine или Redis для общего кэша
+public interface UserDataVersions {
+
+    long current(Long userId);
+
+    void bump(Long userId);
+}
@@ -19,11 +19,15 @@ public class UserService implements UserDetailsService {
 
     private final BCryptPasswordEncoder bCryptPasswordEncoder;
 
+    private final CurrentUserCache currentUserCache;
+
     @Autowired
     public UserService(UserRepository userRepository,
-                       BCryptPasswordEncoder bCryptPasswordEncoder) {
+                       BCryptPasswordEncoder bCryptPasswordEncoder,
+                       CurrentUserCache currentUserCache) {
         this.userRepository = userRepository;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.currentUserCache = currentUserCache;
     }
 
     public User getCurrentUser() {
@@ -62,6 +66,7 @@ public class UserService implements UserDetailsService {
     public boolean deleteUser(Long userId) {
         if (userRepository.findById(userId).isPresent()) {
             userRepository.deleteById(userId);
+            currentUserCache.invalidate(userId);
             return true;
         }
 
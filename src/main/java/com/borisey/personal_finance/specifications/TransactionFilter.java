@@ -0,0 +1,151 @@
+package com.borisey.personal_finance.specifications;
+
+import com.borisey.personal_finance.models.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Набор фильтров списка транзакций, общий для выборки, отчетов и фоновых заданий
+public class TransactionFilter {
+
+    private final Long senderBankId;
+    private final Long recipientBankId;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    private final Long statusId;
+    private final String inn;
+    private final BigDecimal minAmount;
+    private final BigDecimal maxAmount;
+    private final Long transactionTypeId;
+    private final Long categoryId;
+
+    public TransactionFilter(Long senderBankId, Long recipientBankId,
+                             LocalDateTime startDate, LocalDateTime endDate,
+                             Long statusId, String inn,
+                             BigDecimal minAmount, BigDecimal maxAmount,
+                             Long transactionTypeId, Long categoryId) {
+        this.senderBankId = senderBankId;
+        this.recipientBankId = recipientBankId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.statusId = statusId;
+        this.inn = inn;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.transactionTypeId = transactionTypeId;
+        this.categoryId = categoryId;
+    }
+
+    public Specification<Transaction> toSpecification(Long userId, Long deletedStatusId) {
+        Specification<Transaction> spec = Specification.where(
+                        TransactionSpecifications.belongsToUser(userId))
+                .and(TransactionSpecifications.notDeleted(deletedStatusId));
+
+        if (senderBankId != null) {
+            spec = spec.and(TransactionSpecifications.hasSenderBank(senderBankId));
+        }
+
+        if (recipientBankId != null) {
+            spec = spec.and(TransactionSpecifications.hasRecipientBank(recipientBankId));
+        }
+
+        if (startDate != null && endDate != null) {
+            spec = spec.and(TransactionSpecifications.dateIsBetween(startDate, endDate));
+        }
+
+        if (statusId != null) {
+            spec = spec.and(TransactionSpecifications.hasStatus(statusId));
+        }
+
+        if (inn != null) {
+            spec = spec.and(TransactionSpecifications.hasInn(inn));
+        }
+
+        if (minAmount != null && maxAmount != null) {
+            spec = spec.and(TransactionSpecifications.amountIsBetween(minAmount, maxAmount));
+        }
+
+        if (transactionTypeId != null) {
+            spec = spec.and(TransactionSpecifications.hasTransactionType(transactionTypeId));
+        }
+
+        if (categoryId != null) {
+            spec = spec.and(TransactionSpecifications.hasCategory(categoryId));
+        }
+
+        return spec;
+    }
+
+    // Нормализованный ключ набора фильтров: учитываются только условия, которые реально
+    // попадают в спецификацию, суммы сравниваются без незначащих нулей
+    public String cacheKey() {
+        StringBuilder key = new StringBuilder();
+        if (senderBankId != null) {
+            key.append("sb=").append(senderBankId).append(';');
+        }
+        if (recipientBankId != null) {
+            key.append("rb=").append(recipientBankId).append(';');
+        }
+        if (startDate != null && endDate != null) {
+            key.append("d=").append(startDate).append("..").append(endDate).append(';');
+        }
+        if (statusId != null) {
+            key.append("s=").append(statusId).append(';');
+        }
+        if (inn != null) {
+            key.append("inn=").append(inn).append(';');
+        }
+        if (minAmount != null && maxAmount != null) {
+            key.append("a=").append(minAmount.stripTrailingZeros().toPlainString())
+                    .append("..").append(maxAmount.stripTrailingZeros().toPlainString()).append(';');
+        }
+        if (transactionTypeId != null) {
+            key.append("t=").append(transactionTypeId).append(';');
+        }
+        if (categoryId != null) {
+            key.append("c=").append(categoryId).append(';');
+        }
+        return key.toString();
+    }
+
+    public Long getSenderBankId() {
+        return senderBankId;
+    }
+
+    public Long getRecipientBankId() {
+        return recipientBankId;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public Long getStatusId() {
+        return statusId;
+    }
+
+    public String getInn() {
+        return inn;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public Long getTransactionTypeId() {
+        return transactionTypeId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+}
@@ -1,9 +1,7 @@
 package com.borisey.personal_finance.specifications;
 
 import com.borisey.personal_finance.models.Transaction;
-import com.borisey.personal_finance.models.TransactionStatus;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
@@ -26,11 +24,10 @@ public class TransactionSpecifications {
                 criteriaBuilder.equal(root.get("recipientBank").get("id"), bankId);
     }
 
-    public static Specification<Transaction> notDeleted() {
-        return (root, query, criteriaBuilder) -> {
-            Join<Transaction, TransactionStatus> statusJoin = root.join("status", JoinType.INNER);
-            return criteriaBuilder.notEqual(statusJoin.get("code"), "DELETED");
-        };
+    // Сравнение по внешнему ключу status_id, без соединения с таблицей статусов
+    public static Specification<Transaction> notDeleted(Long deletedStatusId) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.notEqual(root.get("status").get("id"), deletedStatusId);
     }
 
     public static Specification<Transaction> dateIsBetween(LocalDateTime startDate, LocalDateTime endDate) {
@@ -62,4 +59,24 @@ public class TransactionSpecifications {
         return (root, query, criteriaBuilder) ->
                 criteriaBuilder.equal(root.get("category").get("id"), categoryId);
     }
+
+    // Условие "строго после курсора" для сортировки по (operationDateTime, id)
+    public static Specification<Transaction> seekAfter(LocalDateTime operationDateTime, Long id, boolean descending) {
+        return (root, query, criteriaBuilder) -> {
+            Path<LocalDateTime> date = root.get("operationDateTime");
+            Path<Long> transactionId = root.get("id");
+            if (descending) {
+                return criteriaBuilder.or(
+                        criteriaBuilder.lessThan(date, operationDateTime),
+                        criteriaBuilder.and(
+                                criteriaBuilder.equal(date, operationDateTime),
+                                criteriaBuilder.lessThan(transactionId, id)));
+            }
+            return criteriaBuilder.or(
+                    criteriaBuilder.greaterThan(date, operationDateTime),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(date, operationDateTime),
+                            criteriaBuilder.greaterThan(transactionId, id)));
+        };
+    }
 }
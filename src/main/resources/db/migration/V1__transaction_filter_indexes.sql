@@ -0,0 +1,21 @@
+-- Составные индексы для фильтров списка транзакций, курсорной пагинации и агрегатов статистики.
+-- На новых базах их создает Hibernate (ddl-auto=update) по описанию в Transaction;
+-- скрипт нужен для баз, где схема ведется вручную. Выполняется один раз.
+
+CREATE INDEX idx_transactions_user_date
+    ON transactions (user_id, operation_date_time, id);
+
+CREATE INDEX idx_transactions_user_status_date
+    ON transactions (user_id, status_id, operation_date_time);
+
+CREATE INDEX idx_transactions_user_type_date
+    ON transactions (user_id, transaction_type_id, operation_date_time);
+
+CREATE INDEX idx_transactions_user_category_date
+    ON transactions (user_id, category_id, operation_date_time);
+
+CREATE INDEX idx_transactions_user_inn
+    ON transactions (user_id, recipient_inn);
+
+CREATE INDEX idx_transactions_user_amount
+    ON transactions (user_id, amount);
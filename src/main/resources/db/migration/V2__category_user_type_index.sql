@@ -0,0 +1,6 @@
+-- Индекс для выборки категорий пользователя по типу транзакции (списки и итоги по категориям).
+-- На новых базах его создает Hibernate (ddl-auto=update) по описанию в Category;
+-- скрипт нужен для баз, где схема ведется вручную. Выполняется один раз.
+
+CREATE INDEX idx_categories_user_type
+    ON categories (user_id, transaction_type_id);
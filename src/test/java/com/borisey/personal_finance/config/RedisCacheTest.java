@@ -0,0 +1,167 @@
+package com.borisey.personal_finance.config;
+
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.repo.PersonTypeRepository;
+import com.borisey.personal_finance.repo.TransactionStatusRepository;
+import com.borisey.personal_finance.repo.TransactionTypeRepository;
+import com.borisey.personal_finance.repo.UserRepository;
+import com.borisey.personal_finance.services.CurrentUserCache;
+import com.borisey.personal_finance.services.RedisUserDataVersions;
+import com.borisey.personal_finance.services.TransactionService;
+import com.borisey.personal_finance.services.TransactionStatsService;
+import com.borisey.personal_finance.services.UserDataVersions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Кэши на Redis (spring.cache.type=redis) со встроенным сервером Redis на свободном порту.
+// Второй экземпляр приложения изображает отдельный RedisUserDataVersions на том же сервере
+@SpringBootTest(properties = {
+        "spring.cache.type=redis",
+        "spring.datasource.url=jdbc:h2:mem:redis_cache_test;MODE=MySQL;DATABASE_TO_LOWER=TRUE"})
+class RedisCacheTest {
+
+    private static final String KEY_PREFIX = "personal-finance:";
+    private static final String PASSWORD_HASH = "$2a$10$redis-cache-test-password-hash";
+    private static final RedisServer redisServer = startRedis();
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserDataVersions dataVersions;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private TransactionStatsService statsService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PersonTypeRepository personTypeRepository;
+
+    @Autowired
+    private TransactionTypeRepository transactionTypeRepository;
+
+    @Autowired
+    private TransactionStatusRepository transactionStatusRepository;
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", () -> "localhost");
+        registry.add("spring.data.redis.port", () -> redisServer.ports().get(0));
+        registry.add("cache.redis.key-prefix", () -> KEY_PREFIX);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redisServer.stop();
+    }
+
+    @Test
+    void cachesAndVersionsLiveInRedis() {
+        assertInstanceOf(RedisCacheManager.class, cacheManager);
+        assertInstanceOf(RedisUserDataVersions.class, dataVersions);
+    }
+
+    @Test
+    void writeOnAnotherInstanceInvalidatesCachedStats() {
+        User user = createUser("redis-cache-stats");
+        assertTrue(statsService.countByStatus(user.getId()).isEmpty());
+        assertFalse(redisTemplate.keys(KEY_PREFIX + CacheNames.STATS + "::*").isEmpty());
+
+        transactionService.create(transaction(user));
+        List<Object[]> counts = statsService.countByStatus(user.getId());
+        assertEquals(1, counts.size());
+        assertEquals(1L, ((Number) counts.get(0)[1]).longValue());
+
+        // Запись на другом экземпляре приложения увеличивает тот же счетчик в Redis
+        UserDataVersions otherInstance = new RedisUserDataVersions(redisTemplate, KEY_PREFIX);
+        long version = dataVersions.current(user.getId());
+        otherInstance.bump(user.getId());
+        assertEquals(version + 1, dataVersions.current(user.getId()));
+    }
+
+    @Test
+    void cachedUsersHaveNoPassword() {
+        User user = createUser("redis-cache-user");
+        assertEquals("redis-cache-user", currentUserCache.get(user.getId()).getUsername());
+
+        User cached = currentUserCache.get(user.getId());
+        assertEquals(user.getId(), cached.getId());
+        assertEquals("USER", cached.getRole());
+        assertNull(cached.getPassword());
+        String stored = redisTemplate.opsForValue().get(KEY_PREFIX + CacheNames.USERS + "::" + user.getId());
+        assertNotNull(stored);
+        assertFalse(stored.contains(PASSWORD_HASH));
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(PASSWORD_HASH);
+        user.setRole("USER");
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    private Transaction transaction(User user) {
+        Transaction transaction = new Transaction();
+        transaction.setUser(user);
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setOperationDateTime(LocalDateTime.now().minusDays(1));
+        transaction.setPersonType(personTypeRepository.findByCode("INDIVIDUAL").orElseThrow());
+        transaction.setTransactionType(transactionTypeRepository.findByCode("EXPENSE").orElseThrow());
+        transaction.setStatus(transactionStatusRepository.findByCode("NEW").orElseThrow());
+        transaction.setCreated(LocalDateTime.now());
+        transaction.setUpdated(LocalDateTime.now());
+        return transaction;
+    }
+
+    private static RedisServer startRedis() {
+        try {
+            RedisServer server = new RedisServer(freePort());
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.borisey.personal_finance.repo;
+
+import com.borisey.personal_finance.dto.CategoryTotal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Замер времени итогов по категориям для одного пользователя на большом объеме данных
+// (по умолчанию 10 000 категорий и 1 000 000 транзакций). Запускается только явно:
+// mvn test -Dtest=CategoryTotalsBenchmarkTest -Dbenchmark=true
+// Объем задается параметрами -Dbenchmark.categories и -Dbenchmark.transactions.
+// База H2 хранится в файле в target: миллионы строк в памяти не помещаются в кучу тестовой JVM.
+// Схема не пересоздается, поэтому данные готовятся только при первом запуске (это несколько минут);
+// после смены объема файлы target/category-totals-benchmark* нужно удалить
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/category-totals-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.hibernate.ddl-auto=update"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CategoryTotalsBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTotalsBenchmarkTest.class);
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 20;
+    private static final int INSERT_CHUNK = 20_000;
+
+    private final int categories = Integer.getInteger("benchmark.categories", 10_000);
+    private final int transactions = Integer.getInteger("benchmark.transactions", 1_000_000);
+
+    // Идентификаторы справочников берутся по кодам: часть записей могут создать инициализаторы приложения
+    private Long userId;
+    private Long expenseTypeId;
+    private Long deletedStatusId;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void populate() {
+        jdbcTemplate.update("MERGE INTO transaction_types (code, title) KEY (code) VALUES ('EXPENSE', 'Списание')");
+        jdbcTemplate.update("MERGE INTO transaction_statuses (code, title) KEY (code) "
+                + "VALUES ('NEW', 'Новая'), ('DELETED', 'Платеж удален')");
+        jdbcTemplate.update("MERGE INTO person_types (code, title, created) KEY (code) "
+                + "VALUES ('INDIVIDUAL', 'Физическое лицо', NOW())");
+        expenseTypeId = idByCode("transaction_types", "EXPENSE");
+        deletedStatusId = idByCode("transaction_statuses", "DELETED");
+        List<Long> existing = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE username = 'benchmark'", Long.class);
+        if (!existing.isEmpty()) {
+            userId = existing.get(0);
+            return;
+        }
+        long started = System.nanoTime();
+
+        jdbcTemplate.update("INSERT INTO users (username, password, role, created_at) VALUES "
+                + "('benchmark', 'x', 'USER', NOW()), ('benchmark-other', 'x', 'USER', NOW())");
+        userId = idOfUser("benchmark");
+
+        jdbcTemplate.update("INSERT INTO categories (id, title, user_id, transaction_type_id, created, updated) "
+                + "SELECT n, CONCAT('Категория ', n), ?, ?, NOW(), NOW() FROM SYSTEM_RANGE(1, ?) r(n)",
+                userId, expenseTypeId, categories);
+
+        // Транзакции равномерно по категориям и по двум годам до NOW; каждая двадцатая удалена.
+        // Транзакции другого пользователя нужны, чтобы индекс по user_id был избирательным
+        insertTransactions(userId, 0, transactions, "MOD(n, " + categories + ") + 1");
+        insertTransactions(idOfUser("benchmark-other"), transactions, transactions / 10, "NULL");
+        jdbcTemplate.execute("ANALYZE");
+
+        logger.info("Данные для замера: {} категорий, {} транзакций пользователя, подготовлены за {} мс",
+                categories, transactions, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Вставка частями: одна огромная транзакция раздувает файл базы H2 и работает много дольше
+    private void insertTransactions(long userId, long firstId, int count, String categoryExpression) {
+        Long personTypeId = idByCode("person_types", "INDIVIDUAL");
+        Long newStatusId = idByCode("transaction_statuses", "NEW");
+        for (int from = 1; from <= count; from += INSERT_CHUNK) {
+            jdbcTemplate.update("INSERT INTO transactions (id, user_id, person_type_id, operation_date_time, "
+                            + "transaction_type_id, amount, status_id, category_id, created, updated) "
+                            + "SELECT ? + n, ?, ?, DATEADD(MINUTE, -MOD(n * 7919, 1051200), CAST(? AS TIMESTAMP)), "
+                            + "?, MOD(n, 1000) + 1, CASEWHEN(MOD(n, 20) = 0, CAST(? AS BIGINT), CAST(? AS BIGINT)), "
+                            + categoryExpression + ", NOW(), NOW() FROM SYSTEM_RANGE(?, ?) r(n)",
+                    firstId, userId, personTypeId, NOW, expenseTypeId, deletedStatusId, newStatusId,
+                    from, Math.min(count, from + INSERT_CHUNK - 1));
+        }
+    }
+
+    private Long idByCode(String table, String code) {
+        return jdbcTemplate.queryForObject("SELECT id FROM " + table + " WHERE code = ?", Long.class, code);
+    }
+
+    private Long idOfUser(String username) {
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+
+    @Test
+    void categoryTotalsForMonth() {
+        measure("месяц", NOW.minusMonths(1));
+    }
+
+    @Test
+    void categoryTotalsForYear() {
+        measure("год", NOW.minusYears(1));
+    }
+
+    private void measure(String period, LocalDateTime startDate) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            query(startDate);
+        }
+
+        long[] millis = new long[MEASURED_RUNS];
+        List<CategoryTotal> totals = List.of();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long started = System.nanoTime();
+            totals = query(startDate);
+            millis[i] = (System.nanoTime() - started) / 1_000_000;
+        }
+        Arrays.sort(millis);
+
+        // Категории без транзакций за период тоже должны попасть в результат
+        assertEquals(categories, totals.size());
+        logger.info("Итоги по {} категориям за {}: медиана {} мс, p95 {} мс, максимум {} мс",
+                totals.size(), period, millis[MEASURED_RUNS / 2],
+                millis[(int) Math.ceil(MEASURED_RUNS * 0.95) - 1], millis[MEASURED_RUNS - 1]);
+    }
+
+    private List<CategoryTotal> query(LocalDateTime startDate) {
+        return categoryRepository.findCategoryTotals(
+                userId, expenseTypeId, startDate, NOW, deletedStatusId, Sort.by("title"));
+    }
+}
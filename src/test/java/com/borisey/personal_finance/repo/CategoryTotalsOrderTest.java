@@ -0,0 +1,130 @@
+package com.borisey.personal_finance.repo;
+
+import com.borisey.personal_finance.config.DatabaseInitializer;
+import com.borisey.personal_finance.dto.CategoryTotal;
+import com.borisey.personal_finance.models.Category;
+import com.borisey.personal_finance.models.PersonType;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.models.TransactionType;
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.services.TransactionStatusRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Порядок итогов по категориям (/api/categories/with-totals): sortBy=totalAmount сортирует
+// по сумме транзакций за период, а не по столбцу categories.total_amount
+@DataJpaTest(properties = "spring.datasource.url="
+        + "jdbc:h2:mem:category_totals_order_test;MODE=MySQL;DATABASE_TO_LOWER=TRUE")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransactionStatusRegistry.class, DatabaseInitializer.class})
+class CategoryTotalsOrderTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 5, 31, 23, 59, 59);
+
+    @Autowired
+    private DatabaseInitializer databaseInitializer;
+
+    @Autowired
+    private TransactionStatusRegistry statusRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PersonTypeRepository personTypeRepository;
+
+    @Autowired
+    private TransactionTypeRepository transactionTypeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private TransactionType expense;
+
+    @BeforeEach
+    void createCategoriesWithTransactions() {
+        databaseInitializer.run();
+        expense = transactionTypeRepository.findByCode(TransactionType.EXPENSE).orElseThrow();
+        user = new User();
+        user.setUsername("totals-test");
+        user.setPassword("password");
+        user.setRole("USER");
+        user = userRepository.save(user);
+
+        Category books = createCategory("Книги");
+        Category cinema = createCategory("Кино");
+        Category taxi = createCategory("Такси");
+        createCategory("Аптека");
+        createTransaction(books, "300.00");
+        createTransaction(cinema, "50.00");
+        createTransaction(cinema, "25.00");
+        createTransaction(taxi, "120.00");
+        transactionRepository.flush();
+        // Устаревшие значения в categories.total_amount в обратном порядке: сортировка по ним дала бы другой ответ
+        jdbcTemplate.update("UPDATE categories SET total_amount = 1000 - id WHERE user_id = ?", user.getId());
+    }
+
+    @Test
+    void totalsSortByComputedAmount() {
+        assertEquals(List.of("Аптека", "Кино", "Такси", "Книги"), titles(findTotals("totalAmount")));
+        assertEquals(List.of("0", "75", "120", "300"), findTotals("totalAmount").stream()
+                .map(total -> total.totalAmount().stripTrailingZeros().toPlainString())
+                .toList());
+    }
+
+    @Test
+    void totalsSortByCategoryField() {
+        assertEquals(List.of("Аптека", "Кино", "Книги", "Такси"), titles(findTotals("title")));
+    }
+
+    private List<CategoryTotal> findTotals(String sortBy) {
+        return categoryRepository.findCategoryTotals(user.getId(), expense.getId(), START, END,
+                statusRegistry.idOf(TransactionStatusCode.DELETED), CategoryRepository.categoryTotalsSort(sortBy));
+    }
+
+    private static List<String> titles(List<CategoryTotal> totals) {
+        return totals.stream().map(CategoryTotal::title).toList();
+    }
+
+    private Category createCategory(String title) {
+        Category category = new Category();
+        category.setTitle(title);
+        category.setUser(user);
+        category.setTransactionType(expense);
+        return categoryRepository.save(category);
+    }
+
+    private void createTransaction(Category category, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setUser(user);
+        transaction.setCategory(category);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setOperationDateTime(LocalDateTime.of(2024, 5, 10, 12, 0));
+        transaction.setPersonType(personTypeRepository.findByCode(PersonType.INDIVIDUAL).orElseThrow());
+        transaction.setTransactionType(expense);
+        transaction.setStatus(statusRegistry.get(TransactionStatusCode.NEW));
+        transaction.setCreated(LocalDateTime.now());
+        transaction.setUpdated(LocalDateTime.now());
+        transactionRepository.save(transaction);
+    }
+}
@@ -0,0 +1,177 @@
+package com.borisey.personal_finance.repo;
+
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.specifications.TransactionFilter;
+import com.borisey.personal_finance.specifications.TransactionSpecifications;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Проверяет по EXPLAIN (H2), что основные запросы к transactions читают таблицу по индексу
+// с user_id в начале, а не полным просмотром. Проверяется SQL, который на самом деле строит Hibernate
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.borisey.personal_finance.repo.TransactionQueryPlanTest$CapturingInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TransactionQueryPlanTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Long DELETED_STATUS_ID = 6L;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 12, 31, 23, 59, 59);
+    // Обращение к transactions в плане H2: "transactions" "t1_0" /* public.<индекс>: ... user_id = ?1 ... */;
+    // внутри подзапроса в FROM имена в плане пишутся без кавычек
+    private static final Pattern USER_INDEX_LOOKUP =
+            Pattern.compile("\"?transactions\"? \"?\\w+\"?\\s*/\\* public\\.\\w+: [^*]*user_id = ");
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "operationDateTime")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
+    // Запоминает все SQL-запросы, которые Hibernate отправляет в базу
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearCapturedStatements() {
+        CapturingInspector.statements.clear();
+    }
+
+    @Test
+    void defaultListingUsesUserDateIndex() {
+        assertIndexed(() -> transactionRepository.findViewWindow(
+                filter(null, null, null, null, null, null, null).toSpecification(USER_ID, DELETED_STATUS_ID),
+                NEWEST_FIRST, 0, 20));
+    }
+
+    @Test
+    void filteredListingsUseCompositeIndexes() {
+        assertIndexed(() -> transactionRepository.findViewWindow(
+                filter(START, END, null, null, null, null, null).toSpecification(USER_ID, DELETED_STATUS_ID),
+                NEWEST_FIRST, 0, 20));
+        assertIndexed(() -> transactionRepository.findViewWindow(
+                filter(null, null, 2L, null, null, null, null).toSpecification(USER_ID, DELETED_STATUS_ID),
+                NEWEST_FIRST, 0, 20));
+        assertIndexed(() -> transactionRepository.findViewWindow(
+                filter(null, null, null, "7707083893", null, null, null)
+                        .toSpecification(USER_ID, DELETED_STATUS_ID),
+                NEWEST_FIRST, 0, 20));
+        assertIndexed(() -> transactionRepository.findViewWindow(
+                filter(null, null, null, null, BigDecimal.ONE, BigDecimal.TEN, null)
+                        .toSpecification(USER_ID, DELETED_STATUS_ID),
+                NEWEST_FIRST, 0, 20));
+        assertIndexed(() -> transactionRepository.findViewWindow(
+                filter(null, null, null, null, null, null, 3L).toSpecification(USER_ID, DELETED_STATUS_ID),
+                NEWEST_FIRST, 0, 20));
+    }
+
+    @Test
+    void cursorPageUsesUserDateIndex() {
+        Specification<Transaction> spec = filter(null, null, null, null, null, null, null)
+                .toSpecification(USER_ID, DELETED_STATUS_ID)
+                .and(TransactionSpecifications.seekAfter(END, 100L, true));
+        assertIndexed(() -> transactionRepository.findViewWindow(spec, NEWEST_FIRST, 0, 21));
+    }
+
+    @Test
+    void slicedPageUsesUserDateIndex() {
+        assertIndexed(() -> transactionRepository.findViewSlice(
+                filter(START, END, null, null, null, null, null).toSpecification(USER_ID, DELETED_STATUS_ID),
+                PageRequest.of(2, 20, NEWEST_FIRST)));
+    }
+
+    @Test
+    void statisticsQueriesUseCompositeIndexes() {
+        assertIndexed(() -> transactionRepository.countTransactionsByPeriod(USER_ID, START, END));
+        assertIndexed(() -> transactionRepository.countTransactionsBefore(USER_ID, START, END));
+        assertIndexed(() -> transactionRepository.countNonDeletedTransactionsByPeriod(
+                USER_ID, START, END, DELETED_STATUS_ID));
+        assertIndexed(() -> transactionRepository.sumAmountByTransactionType(USER_ID, "INCOME", START, END));
+        assertIndexed(() -> transactionRepository.sumAmountByTransactionTypeBefore(
+                USER_ID, "INCOME", START, END));
+        assertIndexed(() -> transactionRepository.sumAmountByTransactionTypes(
+                USER_ID, List.of("EXPENSE", "TRANSFER"), START, END));
+        assertIndexed(() -> transactionRepository.countTransactionsByStatus(USER_ID));
+        assertIndexed(() -> transactionRepository.sumAmountByCategory(USER_ID, "EXPENSE"));
+    }
+
+    @Test
+    void dashboardAggregateUsesUserIndex() {
+        assertIndexed(() -> transactionRepository.aggregateDashboard(USER_ID, START, END,
+                END.minusWeeks(1), END.minusMonths(1), END.minusMonths(3), END.minusYears(1),
+                DELETED_STATUS_ID));
+    }
+
+    @Test
+    void dashboardBankQueriesUseUserIndex() {
+        assertIndexed(() -> transactionRepository.countTransactionsBySenderBank(USER_ID));
+        assertIndexed(() -> transactionRepository.countTransactionsByRecipientBank(USER_ID));
+    }
+
+    @Test
+    void categoryTotalsUseUserIndex() {
+        assertIndexed(() -> categoryRepository.findCategoryTotals(
+                USER_ID, 2L, START, END, DELETED_STATUS_ID, Sort.by("title")));
+    }
+
+    private static TransactionFilter filter(LocalDateTime startDate, LocalDateTime endDate, Long statusId,
+                                            String inn, BigDecimal minAmount, BigDecimal maxAmount,
+                                            Long categoryId) {
+        return new TransactionFilter(null, null, startDate, endDate, statusId,
+                inn, minAmount, maxAmount, null, categoryId);
+    }
+
+    // Выполняет запрос и проверяет план каждого обращения к transactions
+    private void assertIndexed(Runnable query) {
+        CapturingInspector.statements.clear();
+        query.run();
+
+        List<String> statements = new ArrayList<>();
+        for (String sql : CapturingInspector.statements) {
+            if (sql.toLowerCase().contains("from transactions")) {
+                statements.add(sql);
+            }
+        }
+        assertFalse(statements.isEmpty(), "Запрос к transactions не выполнялся");
+
+        for (String sql : statements) {
+            // Параметры не привязываются: H2 строит план и для запроса с незаполненными параметрами
+            String plan = jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql),
+                    rs -> rs.next() ? rs.getString(1) : "");
+            assertFalse(plan.contains("transactions.tableScan"),
+                    () -> "Полный просмотр transactions:\n" + plan);
+            assertTrue(USER_INDEX_LOOKUP.matcher(plan).find(),
+                    () -> "transactions читается не по индексу с условием на user_id:\n" + plan);
+        }
+    }
+}
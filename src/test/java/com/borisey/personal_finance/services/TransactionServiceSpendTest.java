@@ -0,0 +1,184 @@
+package com.borisey.personal_finance.services;
+
+import com.borisey.personal_finance.config.DatabaseInitializer;
+import com.borisey.personal_finance.models.Category;
+import com.borisey.personal_finance.models.PersonType;
+import com.borisey.personal_finance.models.Transaction;
+import com.borisey.personal_finance.models.TransactionStatusCode;
+import com.borisey.personal_finance.models.TransactionType;
+import com.borisey.personal_finance.models.User;
+import com.borisey.personal_finance.repo.CategoryRepository;
+import com.borisey.personal_finance.repo.CategorySpendRepository;
+import com.borisey.personal_finance.repo.PersonTypeRepository;
+import com.borisey.personal_finance.repo.TransactionTypeRepository;
+import com.borisey.personal_finance.repo.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Месячные расходы по категориям (category_spend), которые TransactionService поддерживает
+// приращениями при каждой записи, и их полный пересчет BudgetService.rebuild
+@DataJpaTest(properties = "spring.datasource.url="
+        + "jdbc:h2:mem:transaction_service_spend_test;MODE=MySQL;DATABASE_TO_LOWER=TRUE")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransactionService.class, BudgetService.class, TransactionStatusRegistry.class,
+        InMemoryUserDataVersions.class, DatabaseInitializer.class})
+class TransactionServiceSpendTest {
+
+    private static final LocalDateTime MAY = LocalDateTime.of(2024, 5, 10, 12, 0);
+    private static final LocalDateTime APRIL = LocalDateTime.of(2024, 4, 20, 9, 30);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private TransactionStatusRegistry statusRegistry;
+
+    @Autowired
+    private DatabaseInitializer databaseInitializer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PersonTypeRepository personTypeRepository;
+
+    @Autowired
+    private TransactionTypeRepository transactionTypeRepository;
+
+    @Autowired
+    private CategorySpendRepository categorySpendRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Category food;
+    private Category fun;
+
+    @BeforeEach
+    void createUserAndCategories() {
+        databaseInitializer.run();
+        user = new User();
+        user.setUsername("spend-test");
+        user.setPassword("password");
+        user.setRole("USER");
+        user = userRepository.save(user);
+        food = createCategory("Еда");
+        fun = createCategory("Кино");
+    }
+
+    @Test
+    void spendFollowsEveryWrite() {
+        Transaction lunch = transactionService.create(transaction(food, "30.00", MAY));
+        assertEquals("1:30", spend(food, "2024-05-01"));
+
+        transactionService.createAll(user.getId(), List.of(
+                transaction(fun, "10.00", MAY),
+                transaction(fun, "15.00", MAY),
+                transaction(null, "999.00", MAY)));
+        assertEquals("2:25", spend(fun, "2024-05-01"));
+        assertEquals(2, spendRows());
+
+        // Перенос в другую категорию и месяц с новой суммой
+        transactionService.update(reload(lunch), transaction(fun, "40.00", APRIL));
+        assertEquals("0:0", spend(food, "2024-05-01"));
+        assertEquals("1:40", spend(fun, "2024-04-01"));
+        assertEquals("2:25", spend(fun, "2024-05-01"));
+
+        transactionService.markDeleted(reload(lunch), statusRegistry.get(TransactionStatusCode.DELETED));
+        assertEquals("0:0", spend(fun, "2024-04-01"));
+        assertEquals("2:25", spend(fun, "2024-05-01"));
+    }
+
+    @Test
+    void rebuildMatchesIncrementalSpend() {
+        Transaction lunch = transactionService.create(transaction(food, "30.00", MAY));
+        transactionService.create(transaction(food, "12.50", APRIL));
+        Transaction movie = transactionService.create(transaction(fun, "20.00", MAY));
+        transactionService.createAll(user.getId(), List.of(
+                transaction(fun, "10.00", APRIL),
+                transaction(null, "999.00", MAY)));
+        transactionService.update(reload(lunch), transaction(fun, "40.00", MAY));
+        transactionService.markDeleted(reload(movie), statusRegistry.get(TransactionStatusCode.DELETED));
+
+        List<String> incremental = nonEmptySpend();
+        budgetService.rebuild();
+
+        assertEquals(List.of("Еда|2024-04-01|1:12.5", "Кино|2024-04-01|1:10", "Кино|2024-05-01|1:40"),
+                incremental);
+        assertEquals(incremental, nonEmptySpend());
+    }
+
+    private Category createCategory(String title) {
+        Category category = new Category();
+        category.setTitle(title);
+        category.setUser(user);
+        category.setTransactionType(transactionTypeRepository.findByCode(TransactionType.EXPENSE).orElseThrow());
+        category.setBudget(new BigDecimal("100.00"));
+        return categoryRepository.save(category);
+    }
+
+    private Transaction transaction(Category category, String amount, LocalDateTime operationDateTime) {
+        Transaction transaction = new Transaction();
+        transaction.setUser(user);
+        transaction.setCategory(category);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setOperationDateTime(operationDateTime);
+        transaction.setPersonType(personTypeRepository.findByCode(PersonType.INDIVIDUAL).orElseThrow());
+        transaction.setTransactionType(transactionTypeRepository.findByCode(TransactionType.EXPENSE).orElseThrow());
+        transaction.setStatus(statusRegistry.get(TransactionStatusCode.NEW));
+        transaction.setCreated(LocalDateTime.now());
+        transaction.setUpdated(LocalDateTime.now());
+        return transaction;
+    }
+
+    // Транзакция заново читается из БД, как ее получает контроллер перед изменением
+    private Transaction reload(Transaction transaction) {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.find(Transaction.class, transaction.getId());
+    }
+
+    private String spend(Category category, String periodStart) {
+        return jdbcTemplate.query("SELECT tx_count, amount_sum FROM category_spend " +
+                        "WHERE user_id = ? AND category_id = ? AND period_start = ?",
+                rs -> rs.next()
+                        ? rs.getLong(1) + ":" + rs.getBigDecimal(2).stripTrailingZeros().toPlainString()
+                        : "нет строки",
+                user.getId(), category.getId(), java.sql.Date.valueOf(periodStart));
+    }
+
+    private long spendRows() {
+        return categorySpendRepository.count();
+    }
+
+    private List<String> nonEmptySpend() {
+        return jdbcTemplate.query("SELECT c.title, s.period_start, s.tx_count, s.amount_sum FROM category_spend s " +
+                        "JOIN categories c ON c.id = s.category_id WHERE s.user_id = ? AND s.tx_count > 0 " +
+                        "ORDER BY c.title, s.period_start",
+                (rs, row) -> rs.getString(1) + "|" + rs.getDate(2) + "|" + rs.getLong(3) + ":"
+                        + rs.getBigDecimal(4).stripTrailingZeros().toPlainString(),
+                user.getId());
+    }
+}